@@ -32,6 +32,14 @@ public @interface Fetch {
         }
     }
 
+    enum ParseMode {
+        /** as configured by parse.head.only */
+        CONFIG,
+        FULL,
+        /** the page is only read and parsed up to the end of its head, the body of the document is empty */
+        HEAD_ONLY
+    }
+
     Protocol protocol() default HTTP;
     String urlPrefix() default "";
     String url();
@@ -42,4 +50,5 @@ public @interface Fetch {
     int timeout() default 0; // in milliseconds
     int retriesOnTimeout() default 0;
     Cookie[] setCookies() default @Cookie();
+    ParseMode parse() default ParseMode.CONFIG;
 }
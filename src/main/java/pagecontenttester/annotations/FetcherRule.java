@@ -1,17 +1,16 @@
 package pagecontenttester.annotations;
 
-import static pagecontenttester.fetcher.FetchedPage.annotationCall;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
 
-import org.jsoup.Connection.Method;
 import org.junit.rules.MethodRule;
 import org.junit.runners.model.FrameworkMethod;
 import org.junit.runners.model.Statement;
@@ -24,10 +23,17 @@ public class FetcherRule implements MethodRule {
 
     private FetchedPage fetchedPage;
     private List<FetchedPage> fetchedPages = new ArrayList<>();
-    private Config config = new Config();
-    private Map<String, String> cookie = new HashMap<>();
+    private final Config config;
     private String testName;
 
+    public FetcherRule() {
+        this(Config.get());
+    }
+
+    FetcherRule(Config config) {
+        this.config = config;
+    }
+
     @Override
     public Statement apply(Statement base, FrameworkMethod method, Object target) {
         return new Statement() {
@@ -37,40 +43,36 @@ public class FetcherRule implements MethodRule {
                 List<Annotation> annotations = new LinkedList<>();
                 annotations.addAll(Arrays.asList(method.getMethod().getDeclaringClass().getAnnotations()));
                 annotations.addAll(Arrays.asList(method.getAnnotations()));
-                if (!annotations.isEmpty()) {
-                    testName = method.getMethod().getDeclaringClass().getName() + "." + method.getName();
-                }
+                testName = method.getMethod().getDeclaringClass().getName() + "." + method.getName();
+
+                // all pages of a test are fetched concurrently, results are taken in declaration order
+                CompletableFuture<FetchedPage> singleFetch = null;
+                List<CompletableFuture<FetchedPage>> multipleFetches = new ArrayList<>();
                 for (Annotation annotation : annotations) {
                     if (annotation instanceof Fetch) {
-                        Fetch fetchPage = (Fetch) annotation;
-
-                        String url = fetchPage.url();
-
-                        Method method = fetchPage.method();
-                        DeviceType device = fetchPage.device();
-                        String referrer = getReferrer(fetchPage);
-                        int timeout = getTimeout(fetchPage);
-                        int retriesOnTimeout = getRetryCount(fetchPage);
-                        Cookie[] cookieAnnotation = fetchPage.setCookies();
-                        cookie = getCookies(cookieAnnotation);
-                        Fetch.Protocol protocol = fetchPage.protocol();
-                        String urlPrefix = fetchPage.urlPrefix().isEmpty() ? config.getUrlPrefix() : fetchPage.urlPrefix();
-                        String port = fetchPage.port().isEmpty() ? config.getPort() : fetchPage.port();
-
-                        fetchedPage = annotationCall(   url,
-                                                        device,
-                                                        method,
-                                                        referrer,
-                                                        timeout,
-                                                        retriesOnTimeout,
-                                                        cookie,
-                                                        protocol,
-                                                        urlPrefix,
-                                                        port,
-                                                        testName
-                        );
+                        singleFetch = fetchFromAnnotation((Fetch) annotation);
+                    }
+                    if (annotation instanceof FetchPages) {
+                        for (Fetch fetchPage : ((FetchPages) annotation).value()) {
+                            multipleFetches.add(fetchFromAnnotation(fetchPage));
+                        }
                     }
-                    fetchIfAnnotated(annotation);
+                }
+
+                List<CompletableFuture<FetchedPage>> allFetches = new ArrayList<>(multipleFetches);
+                if (singleFetch != null) {
+                    allFetches.add(singleFetch);
+                }
+                awaitAll(allFetches);
+                if (singleFetch != null) {
+                    fetchedPage = singleFetch.join();
+                }
+                for (CompletableFuture<FetchedPage> fetch : multipleFetches) {
+                    fetchedPages.add(fetch.join());
+                }
+                // registered not before all pages are fetched, so either all of them may be taken from the cache or none
+                if (!allFetches.isEmpty()) {
+                    FetchedPage.registerCalledTest(testName);
                 }
 
                 base.evaluate();
@@ -78,30 +80,56 @@ public class FetcherRule implements MethodRule {
         };
     }
 
-    private void fetchIfAnnotated(Annotation annotation) {
-        if (annotation instanceof FetchPages) {
-            FetchPages fetchPages = (FetchPages) annotation;
-            fetchFromAnnotation(fetchPages.value());
+    private CompletableFuture<FetchedPage> fetchFromAnnotation(Fetch fetchPage) {
+        return ResolvedFetch.of(fetchPage, config).fetchAsync(testName);
+    }
+
+    /**
+     * the first failing fetch fails the test at once, fetches not started yet are cancelled then
+     */
+    private static void awaitAll(List<CompletableFuture<FetchedPage>> fetches) throws Throwable {
+        CompletableFuture<FetchedPage> firstFailure = new CompletableFuture<>();
+        for (CompletableFuture<FetchedPage> fetch : fetches) {
+            fetch.whenComplete((page, failure) -> {
+                if (failure != null) {
+                    firstFailure.completeExceptionally(failure);
+                }
+            });
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]));
+        try {
+            CompletableFuture.anyOf(all, firstFailure).join();
+        } catch (CompletionException e) {
+            fetches.forEach(fetch -> fetch.cancel(false));
+            throw e.getCause();
         }
     }
 
-    private void fetchFromAnnotation(Fetch... fetches) {
-        for (Fetch fetchPage : fetches) {
-            String urlPrefix = fetchPage.urlPrefix().isEmpty() ? config.getUrlPrefix() : fetchPage.urlPrefix();
-            String port = fetchPage.port().isEmpty() ? config.getPort() : fetchPage.port();
-            fetchedPages.add(annotationCall( fetchPage.url(),
-                                    fetchPage.device(),
-                                    fetchPage.method(),
-                                    fetchPage.referrer(),
-                                    fetchPage.timeout(),
-                                    fetchPage.retriesOnTimeout(),
-                                    cookie,
-                                    fetchPage.protocol(),
-                                    urlPrefix,
-                                    port,
-                                    testName
-            ));
+    /**
+     * fetch a page in the background while the test goes on
+     * @param url absolute url of the page
+     * @return the fetched page once it is available
+     */
+    public CompletableFuture<FetchedPage> fetchAsync(String url) {
+        return fetchAsync(url, DESKTOP);
+    }
+
+    public CompletableFuture<FetchedPage> fetchAsync(String url, DeviceType deviceType) {
+        return FetchedPage.fetchAsync(url, deviceType, testName);
+    }
+
+    /**
+     * fetch several pages concurrently, so it takes as long as fetching the slowest page
+     * @param urls absolute urls of the pages
+     * @return the fetched pages in the order of the given urls
+     */
+    public CompletableFuture<List<FetchedPage>> fetchAll(String... urls) {
+        List<CompletableFuture<FetchedPage>> fetches = new ArrayList<>();
+        for (String url : urls) {
+            fetches.add(fetchAsync(url));
         }
+        return CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> fetches.stream().map(CompletableFuture::join).collect(Collectors.toList()));
     }
 
     public FetchedPage get() {
@@ -154,29 +182,4 @@ public class FetcherRule implements MethodRule {
         }
         throw new GetFetchedPageException("could not find fetched page with url-snippet: \"" + urlSnippet + "\" (" + deviceType + ")");
     }
-
-    private int getRetryCount(Fetch fetchPage) {
-        return fetchPage.retriesOnTimeout() == 0 ? config.getTimeoutMaxRetryCount() : fetchPage.retriesOnTimeout();
-    }
-
-    private int getTimeout(Fetch fetchPage) {
-        return fetchPage.timeout() == 0 ? config.getTimeoutValue() : fetchPage.timeout();
-    }
-
-    private String getReferrer(Fetch fetchPage) {
-        return "referrer".equals(fetchPage.referrer()) ? config.getReferrer() : fetchPage.referrer();
-    }
-
-    private Map<String, String> getCookies(Cookie[] annotationCookies) {
-
-        HashMap<String, String> cookies = new HashMap<>();
-
-        for (Cookie annotationCookie : annotationCookies) {
-            if ("1e97fa4a-34d3-11e7-a919-92ebcb67fe33".equals(annotationCookie.name())) {
-                return Collections.emptyMap();
-            }
-            cookies.put(annotationCookie.name(), annotationCookie.value());
-        }
-        return cookies;
-    }
 }
@@ -0,0 +1,93 @@
+package pagecontenttester.annotations;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+import pagecontenttester.configurations.Config;
+
+/**
+ * Class rule fetching every page declared via {@link Fetch} on a test class and its test methods
+ * into the page cache before the first test starts, so the {@link FetcherRule} of each test finds its pages ready.
+ * Identical declarations are fetched only once. Activated by the prefetch property.
+ * A test takes its declared pages from the cache on its first run only, a rerun of the test fetches them again.
+ */
+@Slf4j
+public class PrefetchRule implements TestRule {
+
+    private final Config config;
+
+    public PrefetchRule() {
+        this(Config.get());
+    }
+
+    PrefetchRule(Config config) {
+        this.config = config;
+    }
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                if (config.isPrefetchActive() && config.isCacheDuplicatesActive() && description.getTestClass() != null) {
+                    prefetch(description.getTestClass());
+                }
+                base.evaluate();
+            }
+        };
+    }
+
+    void prefetch(Class<?> testClass) throws InterruptedException {
+        Set<ResolvedFetch> fetches = declaredFetches(testClass);
+        if (fetches.isEmpty()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(config.getPrefetchConcurrency(), fetches.size()),
+                new ThreadFactoryBuilder().setNameFormat("page-content-tester-prefetch-%d").setDaemon(true).build());
+        for (ResolvedFetch fetch : fetches) {
+            executor.execute(() -> {
+                try {
+                    fetch.prefetch();
+                } catch (Exception e) { // NOSONAR the test requesting this page will fetch it again and report the failure
+                    log.warn("could not prefetch {}: {}", fetch.getUrl(), e.getMessage());
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        log.info("prefetched {} pages for {} in {} ms", fetches.size(), testClass.getName(), System.currentTimeMillis() - start);
+    }
+
+    Set<ResolvedFetch> declaredFetches(Class<?> testClass) {
+        Set<ResolvedFetch> fetches = new LinkedHashSet<>();
+        addFetches(fetches, testClass.getAnnotationsByType(Fetch.class));
+        for (Method method : testClass.getMethods()) {
+            if (method.isAnnotationPresent(Test.class)) {
+                addFetches(fetches, method.getDeclaringClass().getAnnotationsByType(Fetch.class));
+                addFetches(fetches, method.getAnnotationsByType(Fetch.class));
+            }
+        }
+        return fetches;
+    }
+
+    private void addFetches(Set<ResolvedFetch> fetches, Fetch[] annotations) {
+        for (Fetch fetchPage : annotations) {
+            fetches.add(ResolvedFetch.of(fetchPage, config));
+        }
+    }
+}
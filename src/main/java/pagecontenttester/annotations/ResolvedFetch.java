@@ -0,0 +1,74 @@
+package pagecontenttester.annotations;
+
+import static pagecontenttester.fetcher.FetchedPage.annotationCallAsync;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.jsoup.Connection.Method;
+
+import lombok.Value;
+import pagecontenttester.configurations.Config;
+import pagecontenttester.fetcher.FetchedPage;
+import pagecontenttester.fetcher.FetchedPage.DeviceType;
+
+/**
+ * Request declared by a {@link Fetch} annotation with all defaults taken from the config.
+ * Two annotations declaring the same request are equal.
+ */
+@Value
+class ResolvedFetch {
+
+    private String url;
+    private DeviceType device;
+    private Method method;
+    private String referrer;
+    private int timeout;
+    private int retriesOnTimeout;
+    private Map<String, String> cookie;
+    private Fetch.Protocol protocol;
+    private String urlPrefix;
+    private String port;
+    private boolean headOnly;
+
+    static ResolvedFetch of(Fetch fetchPage, Config config) {
+        return new ResolvedFetch(fetchPage.url(),
+                                 fetchPage.device(),
+                                 fetchPage.method(),
+                                 "referrer".equals(fetchPage.referrer()) ? config.getReferrer() : fetchPage.referrer(),
+                                 fetchPage.timeout() == 0 ? config.getTimeoutValue() : fetchPage.timeout(),
+                                 fetchPage.retriesOnTimeout() == 0 ? config.getTimeoutMaxRetryCount() : fetchPage.retriesOnTimeout(),
+                                 getCookies(fetchPage.setCookies()),
+                                 fetchPage.protocol(),
+                                 fetchPage.urlPrefix().isEmpty() ? config.getUrlPrefix() : fetchPage.urlPrefix(),
+                                 fetchPage.port().isEmpty() ? config.getPort() : fetchPage.port(),
+                                 isHeadOnly(fetchPage.parse(), config));
+    }
+
+    CompletableFuture<FetchedPage> fetchAsync(String testName) {
+        return annotationCallAsync(url, device, method, referrer, timeout, retriesOnTimeout, cookie, protocol, urlPrefix, port, headOnly, testName);
+    }
+
+    void prefetch() {
+        FetchedPage.prefetch(url, device, method, referrer, timeout, retriesOnTimeout, cookie, protocol, urlPrefix, port, headOnly);
+    }
+
+    private static boolean isHeadOnly(Fetch.ParseMode parseMode, Config config) {
+        return parseMode == Fetch.ParseMode.CONFIG ? config.isHeadOnlyParsingActive() : parseMode == Fetch.ParseMode.HEAD_ONLY;
+    }
+
+    private static Map<String, String> getCookies(Cookie[] annotationCookies) {
+
+        HashMap<String, String> cookies = new HashMap<>();
+
+        for (Cookie annotationCookie : annotationCookies) {
+            if ("1e97fa4a-34d3-11e7-a919-92ebcb67fe33".equals(annotationCookie.name())) {
+                return Collections.emptyMap();
+            }
+            cookies.put(annotationCookie.name(), annotationCookie.value());
+        }
+        return cookies;
+    }
+}
@@ -4,50 +4,172 @@ import static pagecontenttester.fetcher.FetchedPage.DeviceType.MOBILE;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.util.Map;
 
+import org.apache.commons.lang3.StringUtils;
+
+import lombok.AccessLevel;
+import lombok.Getter;
 import pagecontenttester.fetcher.FetchedPage.DeviceType;
 
+/**
+ * Snapshot of pagecontent.properties, read and parsed once when the config is created.
+ * System properties set at that time take precedence over the properties file, explicit overrides over both.
+ * A config never changes and is shared by all tests of a JVM, see {@link #get()}.
+ */
+@Getter
 public class Config {
 
-    private final TypedProperties configs = new TypedProperties("/pagecontent.properties");
-
-    public int getTimeoutValue() {
-        return configs.getIntValue("timeout");
-    }
-
-    public int getTimeoutMaxRetryCount() {
-        return configs.getIntValue("timeout.max.retry.count");
-    }
-
-    public String getUserAgent(DeviceType deviceType) {
-        if (deviceType.equals(MOBILE)) {
-            return configs.getStringValue("mobile.userAgent");
-        }
-        return configs.getStringValue("desktop.userAgent");
+    private final int timeoutValue;
+    private final int timeoutMaxRetryCount;
+    private final long retryInitialBackoffInMillis;
+    private final long retryMaxBackoffInMillis;
+    private final double retryBackoffMultiplier;
+    private final String retryStatusCodes;
+    private final double retryBudgetRatio;
+    private final int retryBudgetMin;
+    @Getter(AccessLevel.NONE)
+    private final String desktopUserAgent;
+    @Getter(AccessLevel.NONE)
+    private final String mobileUserAgent;
+    private final boolean followingRedirects;
+    private final boolean ignoringContentType;
+    private final String referrer;
+    private final boolean cacheDuplicatesActive;
+    private final boolean cacheDuplicatesLogActive;
+    private final String cacheEvictionPolicy;
+    private final int cacheMaxEntries;
+    private final long cacheMaxWeightInBytes;
+    private final long cacheTtlInSeconds;
+    private final int selectorCacheMaxEntries;
+    private final boolean diskCacheActive;
+    private final String diskCacheDirectory;
+    private final boolean prefetchActive;
+    private final int prefetchConcurrency;
+    private final String fetchEngine;
+    private final int poolMaxTotal;
+    private final int poolMaxPerRoute;
+    private final int poolKeepAliveInSeconds;
+    private final int maxRequestsInFlightPerHost;
+    private final double requestsPerSecondPerHost;
+    private final boolean hedgingActive;
+    private final long hedgeDelayInMillis;
+    private final double hedgePercentile;
+    private final double hedgeMaxPercent;
+    private final boolean eagerParsingActive;
+    private final int parseThreads;
+    private final boolean headOnlyParsingActive;
+    private final String documentRetention;
+    private final long documentMaxWeightInBytes;
+    private final boolean bodyStoreActive;
+    private final String bodyStoreDirectory;
+    private final int bodyStoreHotEntries;
+    private final String dumpDirectory;
+    private final boolean dumpCompressionActive;
+    private final int dumpQueueCapacity;
+    private final boolean streamingQueriesActive;
+    private final boolean elementIndexActive;
+    private final int asyncFetchThreads;
+    // null if no proxy is configured
+    private final Proxy proxy;
+    private final String urlPrefix;
+    private final String protocol;
+    private final String port;
+
+    // loaded on first use of a config
+    private static final class Shared {
+        private static final TypedProperties PROPERTIES = new TypedProperties("/pagecontent.properties");
+        private static final Config CONFIG = new Config(PROPERTIES);
     }
 
-    public boolean isFollowingRedirects() {
-        return configs.getBooleanValue("follow.redirects");
+    /**
+     * @return the config shared by all tests, read once per JVM
+     */
+    public static Config get() {
+        return Shared.CONFIG;
     }
 
-    public boolean isIgnoringContentType() {
-        return configs.getBooleanValue("ignore.content-type");
+    /**
+     * @param overrides property values replacing those of the properties file and the system properties
+     * @return a new config, e.g. for tests of a setting that is not active by default
+     */
+    public static Config withOverrides(Map<String, String> overrides) {
+        return new Config(Shared.PROPERTIES.withOverrides(overrides));
     }
 
-    public String getReferrer() {
-        return configs.getStringValue("referrer");
+    /**
+     * @deprecated use the shared {@link #get()}, a new config parses all properties again
+     */
+    @Deprecated
+    public Config() {
+        this(Shared.PROPERTIES);
     }
 
-    public boolean isCacheDuplicatesActive() {
-        return configs.getBooleanValue("cache.duplicates");
+    private Config(TypedProperties configs) {
+        timeoutValue = configs.getIntValue("timeout");
+        timeoutMaxRetryCount = configs.getIntValue("timeout.max.retry.count");
+        retryInitialBackoffInMillis = configs.getLongValue("retry.backoff.initial", 200L);
+        retryMaxBackoffInMillis = configs.getLongValue("retry.backoff.max", 5000L);
+        retryBackoffMultiplier = Double.parseDouble(configs.getStringValue("retry.backoff.multiplier", "2"));
+        retryStatusCodes = configs.getStringValue("retry.status.codes", "429,502,503,504");
+        retryBudgetRatio = Double.parseDouble(configs.getStringValue("retry.budget.ratio", "0.2"));
+        retryBudgetMin = configs.getIntValue("retry.budget.min", 10);
+        desktopUserAgent = configs.getStringValue("desktop.userAgent");
+        mobileUserAgent = configs.getStringValue("mobile.userAgent");
+        followingRedirects = configs.getBooleanValue("follow.redirects");
+        ignoringContentType = configs.getBooleanValue("ignore.content-type");
+        referrer = configs.getStringValue("referrer");
+        cacheDuplicatesActive = configs.getBooleanValue("cache.duplicates");
+        cacheDuplicatesLogActive = configs.getBooleanValue("cache.log.duplicates");
+        cacheEvictionPolicy = configs.getStringValue("cache.eviction", "lru");
+        cacheMaxEntries = configs.getIntValue("cache.max.entries", 1000);
+        cacheMaxWeightInBytes = configs.getLongValue("cache.max.weight.bytes", 256L * 1024 * 1024);
+        cacheTtlInSeconds = configs.getLongValue("cache.ttl.seconds", 0);
+        selectorCacheMaxEntries = configs.getIntValue("selector.cache.max.entries", 1000);
+        diskCacheActive = configs.getBooleanValue("cache.disk", false);
+        diskCacheDirectory = configs.getStringValue("cache.disk.directory", "target/page-content-tester/cache");
+        prefetchActive = configs.getBooleanValue("prefetch", false);
+        prefetchConcurrency = configs.getIntValue("prefetch.concurrency", 8);
+        fetchEngine = configs.getStringValue("fetch.engine", "jsoup");
+        poolMaxTotal = configs.getIntValue("fetch.pool.max.total", 200);
+        poolMaxPerRoute = configs.getIntValue("fetch.pool.max.per.route", 20);
+        poolKeepAliveInSeconds = configs.getIntValue("fetch.pool.keepalive.seconds", 30);
+        maxRequestsInFlightPerHost = configs.getIntValue("fetch.max.per.host", 0);
+        requestsPerSecondPerHost = Double.parseDouble(configs.getStringValue("fetch.rate.per.host", "0"));
+        hedgingActive = configs.getBooleanValue("fetch.hedge", false);
+        hedgeDelayInMillis = configs.getLongValue("fetch.hedge.delay", 0L);
+        hedgePercentile = Double.parseDouble(configs.getStringValue("fetch.hedge.percentile", "95"));
+        hedgeMaxPercent = Double.parseDouble(configs.getStringValue("fetch.hedge.max.percent", "5"));
+        eagerParsingActive = configs.getBooleanValue("parse.eager", false);
+        parseThreads = configs.getIntValue("parse.threads", Runtime.getRuntime().availableProcessors());
+        headOnlyParsingActive = configs.getBooleanValue("parse.head.only", false);
+        documentRetention = configs.getStringValue("cache.document.retention", "strong");
+        documentMaxWeightInBytes = configs.getLongValue("cache.document.max.weight.bytes", 268_435_456L);
+        bodyStoreActive = configs.getBooleanValue("cache.body.store", false);
+        bodyStoreDirectory = configs.getStringValue("cache.body.store.directory", "target/page-content-tester/body-store");
+        bodyStoreHotEntries = configs.getIntValue("cache.body.store.hot.entries", 32);
+        dumpDirectory = configs.getStringValue("dump.directory", "target/page-content-tester");
+        dumpCompressionActive = configs.getBooleanValue("dump.compress", false);
+        dumpQueueCapacity = configs.getIntValue("dump.queue.capacity", 100);
+        streamingQueriesActive = configs.getBooleanValue("query.streaming", false);
+        elementIndexActive = configs.getBooleanValue("query.index", false);
+        asyncFetchThreads = configs.getIntValue("fetch.async.threads", defaultAsyncFetchThreads());
+        proxy = proxyOf(configs);
+        urlPrefix = configs.getStringValue("urlPrefix");
+        protocol = configs.getStringValue("protocol");
+        port = configs.getStringValue("port");
     }
 
-    public boolean isCacheDuplicatesLogActive() {
-        return configs.getBooleanValue("cache.log.duplicates");
+    /**
+     * every test running in parallel gets at least one fetch thread,
+     * the ParallelRunner runs as many tests at the same time as it has threads (maxParallelTestThreads)
+     */
+    private static int defaultAsyncFetchThreads() {
+        return Math.max(32, Integer.getInteger("maxParallelTestThreads", Runtime.getRuntime().availableProcessors()));
     }
 
-    public Proxy getProxy() {
-        if (configs.getStringValue("proxy.host").isEmpty() || configs.getStringValue("proxy.port").isEmpty()) {
+    private static Proxy proxyOf(TypedProperties configs) {
+        if (StringUtils.isEmpty(configs.getStringValue("proxy.host")) || StringUtils.isEmpty(configs.getStringValue("proxy.port"))) {
             return null;
         }
         return new Proxy(
@@ -55,15 +177,10 @@ public class Config {
                 InetSocketAddress.createUnresolved(configs.getStringValue("proxy.host"), configs.getIntValue("proxy.port")));
     }
 
-    public String getUrlPrefix() {
-        return configs.getStringValue("urlPrefix");
-    }
-
-    public String getProtocol() {
-        return configs.getStringValue("protocol");
-    }
-
-    public String getPort() {
-        return configs.getStringValue("port");
+    public String getUserAgent(DeviceType deviceType) {
+        if (deviceType.equals(MOBILE)) {
+            return mobileUserAgent;
+        }
+        return desktopUserAgent;
     }
 }
@@ -4,13 +4,20 @@ import static java.lang.Boolean.parseBoolean;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 public class TypedProperties {
 
-	private final Properties properties = new Properties();
+	private final Properties properties;
+	// take precedence over system properties and the properties file
+	private final Map<String, String> overrides;
 
 	TypedProperties(String resourceName) {
+		properties = new Properties();
+		overrides = Collections.emptyMap();
 		final InputStream inputStream = getClass().getResourceAsStream(resourceName);
 		try {
 			properties.load(inputStream);
@@ -19,7 +26,24 @@ public class TypedProperties {
 		}
 	}
 
+	private TypedProperties(Properties properties, Map<String, String> overrides) {
+		this.properties = properties;
+		this.overrides = overrides;
+	}
+
+	/**
+	 * @return the same properties, without reading the properties file again, with the given values replaced
+	 */
+	TypedProperties withOverrides(final Map<String, String> values) {
+		Map<String, String> merged = new HashMap<>(overrides);
+		merged.putAll(values);
+		return new TypedProperties(properties, Collections.unmodifiableMap(merged));
+	}
+
 	String getStringValue(final String key) {
+		if (overrides.containsKey(key)) {
+			return overrides.get(key);
+		}
 	    return System.getProperty(key, properties.getProperty(key));
 	}
 
@@ -27,10 +51,22 @@ public class TypedProperties {
 		return getStringValue(key) != null;
 	}
 
+	String getStringValue(final String key, final String defaultValue) {
+		return hasProperty(key) ? getStringValue(key) : defaultValue;
+	}
+
 	int getIntValue(final String key) {
 		return Integer.parseInt(getStringValue(key));
 	}
 
+	int getIntValue(final String key, final int defaultValue) {
+		return hasProperty(key) ? getIntValue(key) : defaultValue;
+	}
+
+	long getLongValue(final String key, final long defaultValue) {
+		return hasProperty(key) ? Long.parseLong(getStringValue(key)) : defaultValue;
+	}
+
 	boolean getBooleanValue(final String key) {
 		String value = getStringValue(key);
 		if (!("true".equals(value) || "false".equals(value))){
@@ -38,4 +74,8 @@ public class TypedProperties {
 		}
 		return parseBoolean(getStringValue(key));
 	}
+
+	boolean getBooleanValue(final String key, final boolean defaultValue) {
+		return hasProperty(key) ? getBooleanValue(key) : defaultValue;
+	}
 }
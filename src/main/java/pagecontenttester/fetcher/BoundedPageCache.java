@@ -0,0 +1,185 @@
+package pagecontenttester.fetcher;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import pagecontenttester.fetcher.PageCache.EvictionPolicy;
+
+/**
+ * Page cache bounded by number of entries and by weight.
+ *
+ * With {@link EvictionPolicy#LRU} the least recently used page is evicted first.
+ * With {@link EvictionPolicy#TINY_LFU} new pages enter a small LRU window. Pages leaving the window only
+ * make it into the main area if they have been requested more often than the page they would replace,
+ * so one-off fetches can not flush pages that are shared by many tests.
+ */
+class BoundedPageCache<K, V> implements PageCache<K, V> {
+
+    private static final int WINDOW_PERCENTAGE = 1;
+
+    private final long maxEntries;
+    private final long maxWeight;
+    private final long ttlInNanos;
+    private final ToLongFunction<V> weigher;
+    private final LongSupplier ticker;
+    private final FrequencySketch sketch;
+
+    private final Map<K, Entry<V>> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, Entry<V>> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long weightedSize;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * @param maxEntries max number of cached values, 0 for unbounded
+     * @param maxWeight max sum of weights of all cached values, 0 for unbounded
+     * @param ttlInNanos time to live of an entry, 0 for no expiry
+     */
+    BoundedPageCache(EvictionPolicy policy, long maxEntries, long maxWeight, long ttlInNanos,
+                     ToLongFunction<V> weigher, LongSupplier ticker) {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.ttlInNanos = ttlInNanos;
+        this.weigher = weigher;
+        this.ticker = ticker;
+        this.sketch = policy == EvictionPolicy.TINY_LFU ? new FrequencySketch(maxEntries) : null;
+    }
+
+    @Override
+    public V get(K key) {
+        V value = lookup(key);
+        if (value == null) {
+            missCount.increment();
+        } else {
+            hitCount.increment();
+        }
+        return value;
+    }
+
+    private synchronized V lookup(K key) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Entry<V> entry = window.containsKey(key) ? window.get(key) : main.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (ttlInNanos > 0 && entry.isExpired(ticker.getAsLong())) {
+            remove(key);
+            evictionCount.increment();
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public synchronized V peek(K key) {
+        Entry<V> entry = window.containsKey(key) ? window.get(key) : main.get(key);
+        if (entry == null || ttlInNanos > 0 && entry.isExpired(ticker.getAsLong())) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    @Override
+    public synchronized void put(K key, V value) {
+        remove(key);
+        Entry<V> entry = new Entry<>(value, weigher.applyAsLong(value), ticker.getAsLong() + ttlInNanos);
+        if (sketch == null) {
+            main.put(key, entry);
+        } else {
+            window.put(key, entry);
+        }
+        weightedSize += entry.weight;
+        evictIfNeeded();
+    }
+
+    @Override
+    public void recordLoad(long loadTimeInNanos) {
+        loadCount.increment();
+        totalLoadTime.add(loadTimeInNanos);
+    }
+
+    @Override
+    public synchronized PageCacheStats stats() {
+        return new PageCacheStats(hitCount.sum(),
+                                  missCount.sum(),
+                                  evictionCount.sum(),
+                                  loadCount.sum(),
+                                  totalLoadTime.sum(),
+                                  window.size() + main.size(),
+                                  weightedSize);
+    }
+
+    @Override
+    public synchronized void invalidateAll() {
+        window.clear();
+        main.clear();
+        weightedSize = 0;
+    }
+
+    private void evictIfNeeded() {
+        if (sketch != null) {
+            long windowCapacity = Math.max(1, maxEntries * WINDOW_PERCENTAGE / 100);
+            while (window.size() > windowCapacity) {
+                Map.Entry<K, Entry<V>> candidate = eldest(window);
+                window.remove(candidate.getKey());
+                main.put(candidate.getKey(), candidate.getValue());
+                if (isOverCapacity()) {
+                    K victim = eldest(main).getKey();
+                    boolean admitCandidate = sketch.frequency(candidate.getKey()) > sketch.frequency(victim);
+                    evict(admitCandidate ? victim : candidate.getKey());
+                }
+            }
+        }
+        while (isOverCapacity()) {
+            evict(eldest(main.isEmpty() ? window : main).getKey());
+        }
+    }
+
+    private boolean isOverCapacity() {
+        return (maxEntries > 0 && window.size() + main.size() > maxEntries)
+                || (maxWeight > 0 && weightedSize > maxWeight);
+    }
+
+    private void evict(K key) {
+        remove(key);
+        evictionCount.increment();
+    }
+
+    private void remove(K key) {
+        Entry<V> removed = window.containsKey(key) ? window.remove(key) : main.remove(key);
+        if (removed != null) {
+            weightedSize -= removed.weight;
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> eldest(Map<K, V> map) {
+        Iterator<Map.Entry<K, V>> iterator = map.entrySet().iterator();
+        return iterator.next();
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package pagecontenttester.fetcher;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Fully read response that does not depend on an open connection.
+ * Used for responses that have been restored from the disk cache or fetched by a non jsoup engine,
+ * behaves like the response returned by jsoup's own connection.
+ */
+class BufferedResponse implements Connection.Response {
+
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset=\\s*(?:[\"'])?([^\\s,;\"']*)");
+
+    private URL url;
+    private Connection.Method method;
+    private final int statusCode;
+    private final String statusMessage;
+    private final String contentType;
+    private String charset;
+    private final Map<String, String> headers;
+    private final Map<String, String> cookies;
+    private final byte[] body;
+
+    BufferedResponse(URL url, Connection.Method method, int statusCode, String statusMessage, String contentType,
+                     String charset, Map<String, String> headers, Map<String, String> cookies, byte[] body) {
+        this.url = url;
+        this.method = method;
+        this.statusCode = statusCode;
+        this.statusMessage = statusMessage;
+        this.contentType = contentType;
+        this.charset = charset != null ? charset : charsetOf(contentType);
+        this.headers = new LinkedHashMap<>(headers);
+        this.cookies = new LinkedHashMap<>(cookies);
+        this.body = body;
+    }
+
+    static BufferedResponse of(Connection.Response response) {
+        if (response instanceof BufferedResponse) {
+            return (BufferedResponse) response;
+        }
+        return new BufferedResponse(response.url(),
+                                    response.method(),
+                                    response.statusCode(),
+                                    response.statusMessage(),
+                                    response.contentType(),
+                                    response.charset(),
+                                    response.headers(),
+                                    response.cookies(),
+                                    response.bodyAsBytes());
+    }
+
+    /**
+     * @return copy of status, headers and cookies of the response, not referencing its body
+     */
+    static BufferedResponse withoutBody(Connection.Response response) {
+        return new BufferedResponse(response.url(),
+                                    response.method(),
+                                    response.statusCode(),
+                                    response.statusMessage(),
+                                    response.contentType(),
+                                    response.charset(),
+                                    response.headers(),
+                                    response.cookies(),
+                                    new byte[0]);
+    }
+
+    static String charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        if (matcher.find()) {
+            try {
+                String name = matcher.group(1).trim();
+                return Charset.isSupported(name) ? name : null;
+            } catch (IllegalCharsetNameException e) { // NOSONAR
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int statusCode() {
+        return statusCode;
+    }
+
+    @Override
+    public String statusMessage() {
+        return statusMessage;
+    }
+
+    @Override
+    public String charset() {
+        return charset;
+    }
+
+    @Override
+    public Connection.Response charset(String charset) {
+        this.charset = charset;
+        return this;
+    }
+
+    @Override
+    public String contentType() {
+        return contentType;
+    }
+
+    @Override
+    public Document parse() throws IOException {
+        Document document = Jsoup.parse(new ByteArrayInputStream(body), charset, url.toExternalForm());
+        charset = document.outputSettings().charset().name();
+        return document;
+    }
+
+    @Override
+    public String body() {
+        return new String(body, charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset));
+    }
+
+    @Override
+    public byte[] bodyAsBytes() {
+        return body;
+    }
+
+    @Override
+    public URL url() {
+        return url;
+    }
+
+    @Override
+    public Connection.Response url(URL url) {
+        this.url = url;
+        return this;
+    }
+
+    @Override
+    public Connection.Method method() {
+        return method;
+    }
+
+    @Override
+    public Connection.Response method(Connection.Method method) {
+        this.method = method;
+        return this;
+    }
+
+    @Override
+    public String header(String name) {
+        String key = keyIgnoringCase(headers, name);
+        return key == null ? null : headers.get(key);
+    }
+
+    @Override
+    public Connection.Response header(String name, String value) {
+        removeHeader(name);
+        headers.put(name, value);
+        return this;
+    }
+
+    @Override
+    public boolean hasHeader(String name) {
+        return keyIgnoringCase(headers, name) != null;
+    }
+
+    @Override
+    public boolean hasHeaderWithValue(String name, String value) {
+        return hasHeader(name) && header(name).equalsIgnoreCase(value);
+    }
+
+    @Override
+    public Connection.Response removeHeader(String name) {
+        String key = keyIgnoringCase(headers, name);
+        if (key != null) {
+            headers.remove(key);
+        }
+        return this;
+    }
+
+    @Override
+    public Map<String, String> headers() {
+        return headers;
+    }
+
+    @Override
+    public String cookie(String name) {
+        return cookies.get(name);
+    }
+
+    @Override
+    public Connection.Response cookie(String name, String value) {
+        cookies.put(name, value);
+        return this;
+    }
+
+    @Override
+    public boolean hasCookie(String name) {
+        return cookies.containsKey(name);
+    }
+
+    @Override
+    public Connection.Response removeCookie(String name) {
+        cookies.remove(name);
+        return this;
+    }
+
+    @Override
+    public Map<String, String> cookies() {
+        return cookies;
+    }
+
+    private static String keyIgnoringCase(Map<String, String> map, String name) {
+        for (String key : map.keySet()) {
+            if (key.equalsIgnoreCase(name)) {
+                return key;
+            }
+        }
+        return null;
+    }
+}
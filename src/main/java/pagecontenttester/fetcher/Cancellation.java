@@ -0,0 +1,42 @@
+package pagecontenttester.fetcher;
+
+/**
+ * Lets a request that is no longer needed be aborted by whoever started it, e.g. the slower of a hedged pair.
+ * The engine running the request registers how to abort it, an engine that can not abort a request ignores it.
+ */
+public final class Cancellation {
+
+    private Runnable abort;
+    private boolean cancelled;
+
+    /**
+     * @param abort run once the request is cancelled, right away if it has been cancelled already
+     */
+    public void onCancel(Runnable abort) {
+        synchronized (this) {
+            if (!cancelled) {
+                this.abort = abort;
+                return;
+            }
+        }
+        abort.run();
+    }
+
+    public void cancel() {
+        Runnable registered;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            registered = abort;
+        }
+        if (registered != null) {
+            registered.run();
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
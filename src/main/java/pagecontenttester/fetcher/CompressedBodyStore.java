@@ -0,0 +1,145 @@
+package pagecontenttester.fetcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Keeps page bodies deflated in memory mapped files, outside of the java heap.
+ * The files are append only and deleted right after they have been mapped (on shutdown where that is not possible),
+ * space of bodies that are no longer referenced is not reused during the test run.
+ * Decoded bodies are kept in a small on-heap hot set, as a test usually queries the same page several times in a row.
+ */
+final class CompressedBodyStore {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Cache<Handle, String> hot;
+    // guarded by this
+    private MappedByteBuffer segment;
+
+    /**
+     * compressed bytes of a body, the key of its decoded text in the hot set
+     */
+    static final class Handle {
+        private final ByteBuffer compressed;
+        private final int length;
+
+        private Handle(ByteBuffer compressed, int length) {
+            this.compressed = compressed;
+            this.length = length;
+        }
+    }
+
+    CompressedBodyStore(Path directory, int hotEntries) {
+        this(directory, hotEntries, SEGMENT_SIZE);
+    }
+
+    CompressedBodyStore(Path directory, int hotEntries, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        // weak keys compare by identity, a text is dropped together with its page
+        this.hot = CacheBuilder.newBuilder().maximumSize(hotEntries).weakKeys().build();
+    }
+
+    static CompressedBodyStore fromConfig(Config config) {
+        return new CompressedBodyStore(Paths.get(config.getBodyStoreDirectory()), config.getBodyStoreHotEntries());
+    }
+
+    Handle put(byte[] bytes) {
+        byte[] compressed = deflate(bytes);
+        ByteBuffer slice = allocate(compressed.length);
+        slice.put(compressed);
+        return new Handle(slice, bytes.length);
+    }
+
+    byte[] get(Handle handle) {
+        byte[] compressed = new byte[handle.compressed.capacity()];
+        ((ByteBuffer) handle.compressed.duplicate().clear()).get(compressed);
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            byte[] bytes = new byte[handle.length];
+            int inflated = 0;
+            while (inflated < bytes.length && !inflater.finished()) {
+                inflated += inflater.inflate(bytes, inflated, bytes.length - inflated);
+            }
+            return bytes;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("stored body is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * @param decoder turns the bytes of the body into its text if it is not in the hot set
+     */
+    String text(Handle handle, Function<byte[], String> decoder) {
+        try {
+            return hot.get(handle, () -> decoder.apply(get(handle)));
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("could not decode stored body", e.getCause());
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("could not compress body", e);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    private synchronized ByteBuffer allocate(int size) {
+        if (segment == null || segment.remaining() < size) {
+            segment = map(Math.max(segmentSize, size));
+        }
+        ByteBuffer slice = segment.slice();
+        slice.limit(size);
+        segment.position(segment.position() + size);
+        return slice.slice();
+    }
+
+    private MappedByteBuffer map(int size) {
+        try {
+            Files.createDirectories(directory);
+            Path file = Files.createTempFile(directory, "segment-", ".bin");
+            MappedByteBuffer mapped;
+            try (RandomAccessFile segmentFile = new RandomAccessFile(file.toFile(), "rw")) {
+                segmentFile.setLength(size);
+                mapped = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            if (!file.toFile().delete()) {
+                file.toFile().deleteOnExit();
+            }
+            return mapped;
+        } catch (IOException e) {
+            throw new IllegalStateException("could not map body store segment in " + directory, e);
+        }
+    }
+}
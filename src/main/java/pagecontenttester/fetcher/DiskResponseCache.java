@@ -0,0 +1,172 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jsoup.Connection;
+
+import com.google.common.hash.Hashing;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps responses on disk between test runs so that unchanged pages can be revalidated
+ * via If-None-Match / If-Modified-Since instead of being transferred again.
+ *
+ * Every response is stored as one binary record. Records are addressed by the SHA-256 of the
+ * normalized request key, the first two hex digits are used as sub directory to keep directories small.
+ */
+@Slf4j
+class DiskResponseCache {
+
+    static final String ETAG = "ETag";
+    static final String LAST_MODIFIED = "Last-Modified";
+
+    private static final int MAGIC = 0x50435443;
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final LongAdder storedCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    DiskResponseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the stored response for the given request key or null if there is none (or it is unreadable)
+     */
+    BufferedResponse load(String key) {
+        Path file = fileOf(key);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals(readString(in))) {
+                return null;
+            }
+            URL url = new URL(readString(in));
+            Connection.Method method = Connection.Method.valueOf(readString(in));
+            int statusCode = in.readInt();
+            String statusMessage = readString(in);
+            String contentType = readString(in);
+            String charset = readString(in);
+            Map<String, String> headers = readMap(in);
+            Map<String, String> cookies = readMap(in);
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new BufferedResponse(url, method, statusCode, statusMessage, contentType, charset, headers, cookies, body);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("could not read cached response {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the response fully read into memory, stored on disk if possible
+     */
+    BufferedResponse store(String key, Connection.Response response) {
+        BufferedResponse buffered = BufferedResponse.of(response);
+        Path file = fileOf(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, key);
+                writeString(out, buffered.url().toExternalForm());
+                writeString(out, buffered.method().name());
+                out.writeInt(buffered.statusCode());
+                writeString(out, buffered.statusMessage());
+                writeString(out, buffered.contentType());
+                writeString(out, buffered.charset());
+                writeMap(out, buffered.headers());
+                writeMap(out, buffered.cookies());
+                out.writeInt(buffered.bodyAsBytes().length);
+                out.write(buffered.bodyAsBytes());
+            }
+            Files.move(tempFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            storedCount.increment();
+        } catch (IOException e) {
+            log.warn("could not store response of {} in disk cache: {}", buffered.url(), e.getMessage());
+        }
+        return buffered;
+    }
+
+    void recordNotModified(BufferedResponse stored) {
+        notModifiedCount.increment();
+        bytesSaved.add(stored.bodyAsBytes().length);
+    }
+
+    long getStoredCount() {
+        return storedCount.sum();
+    }
+
+    long getNotModifiedCount() {
+        return notModifiedCount.sum();
+    }
+
+    /**
+     * @return number of body bytes that have been taken from disk instead of being transferred again
+     */
+    long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    private Path fileOf(String key) {
+        String hash = Hashing.sha256().hashString(key, UTF_8).toString();
+        return directory.resolve(hash.substring(0, 2)).resolve(hash.substring(2) + ".entry");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,117 @@
+package pagecontenttester.fetcher;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Decides how long the parsed documents of cached pages are kept. A dropped document is parsed again
+ * from the page body the next time the page is queried.
+ *
+ * With {@link Policy#STRONG} a document is kept as long as its page.
+ * With {@link Policy#SOFT} documents are dropped by the garbage collector when the heap runs short.
+ * With {@link Policy#BOUNDED} documents are kept in a pool bounded by their estimated size,
+ * the least recently used document is dropped first.
+ */
+final class DocumentRetention {
+
+    private final Policy policy;
+    private final Cache<Object, Pooled> pool;
+    private final LongAdder parseCount = new LongAdder();
+    private final LongAdder reparseCount = new LongAdder();
+
+    enum Policy {
+        STRONG,
+        SOFT,
+        BOUNDED;
+
+        static Policy of(String name) {
+            for (Policy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name)) {
+                    return policy;
+                }
+            }
+            throw new IllegalArgumentException("unknown cache.document.retention " + name + ", use strong, soft or bounded");
+        }
+    }
+
+    private static final class Pooled {
+        private final Object value;
+        private final int weight;
+
+        private Pooled(Object value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param maxWeight max sum of the estimated sizes of pooled documents, only used by {@link Policy#BOUNDED}
+     */
+    DocumentRetention(Policy policy, long maxWeight) {
+        this.policy = policy;
+        this.pool = policy != Policy.BOUNDED ? null : CacheBuilder.newBuilder()
+                // a single segment, otherwise each segment is only allowed a share of the max weight
+                .concurrencyLevel(1)
+                // a document of a page dropped from the page cache is released with its page, not only once it is the eldest
+                .weakKeys()
+                .maximumWeight(maxWeight)
+                .<Object, Pooled>weigher((key, pooled) -> pooled.weight)
+                .build();
+    }
+
+    static DocumentRetention fromConfig(Config config) {
+        return new DocumentRetention(Policy.of(config.getDocumentRetention()), config.getDocumentMaxWeightInBytes());
+    }
+
+    /**
+     * @return true if documents are kept as long as their page
+     */
+    boolean isStrong() {
+        return policy == Policy.STRONG;
+    }
+
+    /**
+     * @param weight estimated size of the value in bytes
+     * @return the value or null once it has been dropped
+     */
+    <T> Supplier<T> retain(T value, long weight) {
+        switch (policy) {
+            case SOFT:
+                SoftReference<T> reference = new SoftReference<>(value);
+                return reference::get;
+            case BOUNDED:
+                // the key is only referenced by the supplier held by the page, weak keys compare by identity
+                Object key = new Object();
+                pool.put(key, new Pooled(value, (int) Math.min(weight, Integer.MAX_VALUE)));
+                return () -> pooled(key);
+            default:
+                return () -> value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T pooled(Object key) {
+        Pooled pooled = pool.getIfPresent(key);
+        return pooled == null ? null : (T) pooled.value;
+    }
+
+    /**
+     * @param reparse true if the page had been parsed before and its document has been dropped
+     */
+    void recordParse(boolean reparse) {
+        parseCount.increment();
+        if (reparse) {
+            reparseCount.increment();
+        }
+    }
+
+    DocumentStats stats() {
+        return new DocumentStats(parseCount.sum(), reparseCount.sum());
+    }
+}
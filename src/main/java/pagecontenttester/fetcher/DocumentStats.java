@@ -0,0 +1,20 @@
+package pagecontenttester.fetcher;
+
+import lombok.Value;
+
+/**
+ * Snapshot of how often pages have been parsed, and parsed again because their document had been dropped.
+ */
+@Value
+public class DocumentStats {
+
+    private long parseCount;
+    private long reparseCount;
+
+    /**
+     * @return ratio of parses that had to be repeated, 0.0 if nothing has been parsed yet
+     */
+    public double reparseRate() {
+        return parseCount == 0 ? 0.0 : (double) reparseCount / parseCount;
+    }
+}
@@ -0,0 +1,74 @@
+package pagecontenttester.fetcher;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+/**
+ * Elements of a document by id, class and tag name, each in document order.
+ * Answers single #id, .class and tag selectors without traversing the document.
+ */
+class ElementIndex {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[\\w-]+");
+    private static final Elements NONE = new Elements();
+
+    private final Map<String, Elements> byId = new HashMap<>();
+    private final Map<String, Elements> byClass = new HashMap<>();
+    private final Map<String, Elements> byTag = new HashMap<>();
+
+    /**
+     * has to be called for all elements in document order
+     */
+    void add(Element element) {
+        byTag.computeIfAbsent(element.tagName().toLowerCase(Locale.ENGLISH), tag -> new Elements()).add(element);
+        String id = element.id();
+        if (!id.isEmpty()) {
+            byId.computeIfAbsent(id, key -> new Elements()).add(element);
+        }
+        String classes = element.className();
+        int start = -1;
+        for (int i = 0; i <= classes.length(); i++) {
+            boolean separator = i == classes.length() || Character.isWhitespace(classes.charAt(i));
+            if (!separator && start < 0) {
+                start = i;
+            } else if (separator && start >= 0) {
+                addClass(classes.substring(start, i).toLowerCase(Locale.ENGLISH), element);
+                start = -1;
+            }
+        }
+    }
+
+    private void addClass(String className, Element element) {
+        Elements elements = byClass.computeIfAbsent(className, key -> new Elements());
+        // an element may have the same class twice
+        if (elements.isEmpty() || elements.get(elements.size() - 1) != element) {
+            elements.add(element);
+        }
+    }
+
+    /**
+     * @return the matching elements, must not be modified, or null if the selector is not a single #id, .class or tag selector
+     */
+    Elements lookup(String cssSelector) {
+        String selector = cssSelector.trim();
+        if (selector.length() < 2 && !IDENTIFIER.matcher(selector).matches()) {
+            return null;
+        }
+        char first = selector.charAt(0);
+        if (first == '#' && IDENTIFIER.matcher(selector.substring(1)).matches()) {
+            return byId.getOrDefault(selector.substring(1), NONE);
+        }
+        if (first == '.' && IDENTIFIER.matcher(selector.substring(1)).matches()) {
+            return byClass.getOrDefault(selector.substring(1).toLowerCase(Locale.ENGLISH), NONE);
+        }
+        if (Character.isLetter(first) && IDENTIFIER.matcher(selector).matches()) {
+            return byTag.getOrDefault(selector.toLowerCase(Locale.ENGLISH), NONE);
+        }
+        return null;
+    }
+}
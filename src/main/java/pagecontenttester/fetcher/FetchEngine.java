@@ -0,0 +1,69 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.net.Proxy;
+import java.util.Map;
+
+import org.jsoup.Connection;
+
+import lombok.Builder;
+import lombok.Value;
+import pagecontenttester.configurations.Config;
+
+/**
+ * Performs the actual HTTP request of a fetch.
+ * The engine is selected by the fetch.engine property: "jsoup" (default), "pooled"
+ * or the fully qualified name of a custom implementation having a public no-args constructor.
+ */
+public interface FetchEngine {
+
+    /**
+     * @return the fully read response, it will be parsed by jsoup on demand
+     * @throws java.net.SocketTimeoutException if connecting or reading timed out
+     */
+    Connection.Response execute(Request request) throws IOException;
+
+    /**
+     * same as {@link #execute(Request)}, engines able to abort a running request do so once it is cancelled.
+     * by default the request is not aborted and runs to its end.
+     * @throws IOException if the request has been aborted
+     */
+    default Connection.Response execute(Request request, Cancellation cancellation) throws IOException {
+        return execute(request);
+    }
+
+    static FetchEngine fromConfig(Config config) {
+        String engine = config.getFetchEngine();
+        if ("jsoup".equalsIgnoreCase(engine)) {
+            return new JsoupFetchEngine();
+        }
+        if ("pooled".equalsIgnoreCase(engine)) {
+            return new PooledFetchEngine(config.getPoolMaxTotal(),
+                                         config.getPoolMaxPerRoute(),
+                                         config.getPoolKeepAliveInSeconds());
+        }
+        try {
+            return (FetchEngine) Class.forName(engine).newInstance();
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalStateException("could not create fetch engine " + engine, e);
+        }
+    }
+
+    @Value
+    @Builder
+    class Request {
+        private String url;
+        private Connection.Method method;
+        private Map<String, String> data;
+        private Map<String, String> headers;
+        private Map<String, String> cookies;
+        private String userAgent;
+        private String referrer;
+        private int timeout;
+        private Proxy proxy;
+        private boolean followRedirects;
+        private boolean ignoreContentType;
+        // the body of a html page is only needed up to the end of its head, engines may stop reading there
+        private boolean headOnly;
+    }
+}
@@ -0,0 +1,44 @@
+package pagecontenttester.fetcher;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Shared thread pools for fetches and parsing that are running in the background.
+ * Threads are daemons, a test run never waits for them to terminate.
+ */
+final class FetchExecutor {
+
+    // bounds the fetches of all tests running in parallel, sized by fetch.async.threads
+    private static final ExecutorService IO = Executors.newFixedThreadPool(
+            Config.get().getAsyncFetchThreads(),
+            new ThreadFactoryBuilder().setNameFormat("page-content-tester-io-%d").setDaemon(true).build());
+
+    // separate from the io pool, a hedged fetch running on an io thread must never wait for a free io thread
+    private static final ExecutorService HEDGE = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("page-content-tester-hedge-%d").setDaemon(true).build());
+
+    // parsing is cpu bound, more threads than cores would only compete with the tests for cpu
+    private static final ExecutorService PARSE = Executors.newFixedThreadPool(
+            Config.get().getParseThreads(),
+            new ThreadFactoryBuilder().setNameFormat("page-content-tester-parse-%d").setDaemon(true).build());
+
+    private FetchExecutor() {
+    }
+
+    static ExecutorService io() {
+        return IO;
+    }
+
+    static ExecutorService hedge() {
+        return HEDGE;
+    }
+
+    static ExecutorService parse() {
+        return PARSE;
+    }
+}
@@ -1,6 +1,11 @@
 package pagecontenttester.fetcher;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.jsoup.Connection;
 
@@ -21,4 +26,41 @@ class FetchRequestParameters {
     private Map<String, String> cookie;
     private String urlPrefix;
     private String testName;
+    private boolean headOnly;
+
+    /**
+     * @return a key that is the same for all requests leading to the same response,
+     * independent of url notation, map ordering, timeouts and retries
+     */
+    String normalizedKey() {
+        return method + " " + normalizeUrl(urlToFetch)
+                + " device=" + device
+                + " referrer=" + referrer
+                + " data=" + sorted(requestBody)
+                + " cookies=" + sorted(cookie);
+    }
+
+    private static String normalizeUrl(String url) {
+        try {
+            URI uri = new URI(url);
+            if (uri.getHost() == null) {
+                return url;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.ENGLISH);
+            boolean isDefaultPort = uri.getPort() == -1
+                    || ("http".equals(scheme) && uri.getPort() == 80)
+                    || ("https".equals(scheme) && uri.getPort() == 443);
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            return scheme + "://" + uri.getHost().toLowerCase(Locale.ENGLISH)
+                    + (isDefaultPort ? "" : ":" + uri.getPort())
+                    + path
+                    + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+        } catch (URISyntaxException e) { // NOSONAR
+            return url;
+        }
+    }
+
+    private static Map<String, String> sorted(Map<String, String> map) {
+        return map == null ? Collections.emptyMap() : new TreeMap<>(map);
+    }
 }
@@ -4,23 +4,35 @@ import static org.jsoup.Connection.Method;
 import static org.jsoup.Connection.Response;
 import static pagecontenttester.fetcher.FetchedPage.DeviceType.MOBILE;
 
-import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
 import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import com.google.common.cache.CacheBuilder;
 
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -33,8 +45,17 @@ public class FetchedPage implements Page {
     private final String url;
     private final String urlPrefix;
     private final DeviceType deviceType;
+    // status, headers and cookies only, the body is kept decoded once by the page body
     private final Response response;
-    private Optional<Document> document = Optional.empty();
+    private final PageBody body;
+    private final boolean headOnly;
+    // written after parsing, read without locking by all threads sharing this page. null until the page is parsed,
+    // supplies null once the document has been dropped, see cache.document.retention
+    private volatile Supplier<ParsedDocument> parsed;
+    private final AtomicInteger streamedQueries = new AtomicInteger();
+    // JSONObject or JSONArray, parsed on first access
+    private volatile Object json;
+    private final Map<String, List<Object>> jsonSelections = new ConcurrentHashMap<>();
     private static final ThreadLocal<String> nameOfTest = new ThreadLocal<>();
 
     public enum DeviceType {
@@ -42,14 +63,44 @@ public class FetchedPage implements Page {
         MOBILE
     }
 
-    private static Config config = new Config();
+    private static final Config config = Config.get();
+
+    // a parsed jsoup DOM is typically several times bigger than the page source it has been built from
+    private static final int DOM_TO_BODY_SIZE_RATIO = 5;
+    private static final int MAX_TRACKED_TEST_METHODS = 10_000;
+    // scanning the page source is cheaper than parsing it only for a few queries
+    private static final int MAX_STREAMED_QUERIES_PER_PAGE = 4;
 
-    private static final Map<FetchRequestParameters, FetchedPage> fetchedPageCache = new ConcurrentHashMap<>();
-    private static final Set<String> calledTestMethods = new ConcurrentSkipListSet<>();
+    private static final PageCache<FetchRequestParameters, FetchedPage> fetchedPageCache =
+            PageCache.fromConfig(config, FetchedPage::estimateRetainedSize);
+    private static final Set<String> calledTestMethods = Collections.newSetFromMap(
+            CacheBuilder.newBuilder().maximumSize(MAX_TRACKED_TEST_METHODS).<String, Boolean>build().asMap());
+    private static final SingleFlight<FetchRequestParameters, FetchedPage> inFlightFetches = new SingleFlight<>();
+    private static final PageDumpWriter pageDumps = PageDumpWriter.fromConfig(config);
+    private static final DocumentRetention documentRetention = DocumentRetention.fromConfig(config);
+    private static final CompressedBodyStore bodyStore = config.isBodyStoreActive() ? CompressedBodyStore.fromConfig(config) : null;
 
     public static FetchedPage annotationCall(String url, DeviceType device, Method method, String referrer, int timeout,
                                             int retriesOnTimeout, Map<String, String> cookie, Fetch.Protocol protocol,
                                             String urlPrefix, String port, String testName) {
+        return annotationCall(url, device, method, referrer, timeout, retriesOnTimeout, cookie, protocol,
+                              urlPrefix, port, config.isHeadOnlyParsingActive(), testName);
+    }
+
+    /**
+     * @param headOnly if true only the head of a html page is read and parsed
+     */
+    public static FetchedPage annotationCall(String url, DeviceType device, Method method, String referrer, int timeout,
+                                            int retriesOnTimeout, Map<String, String> cookie, Fetch.Protocol protocol,
+                                            String urlPrefix, String port, boolean headOnly, String testName) {
+        return annotationCall(url, device, method, referrer, timeout, retriesOnTimeout, cookie, protocol,
+                              urlPrefix, port, headOnly, testName, true);
+    }
+
+    private static FetchedPage annotationCall(String url, DeviceType device, Method method, String referrer, int timeout,
+                                              int retriesOnTimeout, Map<String, String> cookie, Fetch.Protocol protocol,
+                                              String urlPrefix, String port, boolean headOnly, String testName,
+                                              boolean registeringTest) {
 
         String urlWithPrefix = getUrl(url, protocol, urlPrefix, port);
 
@@ -62,10 +113,57 @@ public class FetchedPage implements Page {
                             retriesOnTimeout,
                             cookie,
                             urlPrefix,
-                            testName
+                            headOnly,
+                            testName,
+                            registeringTest
         );
     }
 
+    /**
+     * same as {@link #annotationCall} but fetching in the background.
+     * pages are taken from and added to the same cache as for blocking calls.
+     * the test is not registered as called, so all pages a test fetches concurrently are taken from the cache
+     * on its first run, see {@link #registerCalledTest(String)}.
+     */
+    public static CompletableFuture<FetchedPage> annotationCallAsync(String url, DeviceType device, Method method, String referrer, int timeout,
+                                                                     int retriesOnTimeout, Map<String, String> cookie, Fetch.Protocol protocol,
+                                                                     String urlPrefix, String port, boolean headOnly,
+                                                                     String testName) {
+        nameOfTest.set(testName);
+        return CompletableFuture.supplyAsync(() -> annotationCall(url, device, method, referrer, timeout, retriesOnTimeout,
+                                                                  cookie, protocol, urlPrefix, port, headOnly, testName,
+                                                                  false),
+                                             FetchExecutor.io());
+    }
+
+    /**
+     * pages fetched by a called test are not taken from the cache anymore, e.g. when a failed test is run again.
+     * a test fetching pages concurrently registers itself once all of them are fetched.
+     */
+    public static void registerCalledTest(String testName) {
+        calledTestMethods.add(testName);
+    }
+
+    /**
+     * fetches an absolute url in the background using the timeout, retry and referrer settings of the config
+     */
+    public static CompletableFuture<FetchedPage> fetchAsync(String url, DeviceType device, String testName) {
+        nameOfTest.set(testName);
+        return CompletableFuture.supplyAsync(() -> fetchedPages(url,
+                                                                Method.GET,
+                                                                Collections.emptyMap(),
+                                                                device,
+                                                                config.getReferrer(),
+                                                                config.getTimeoutValue(),
+                                                                config.getTimeoutMaxRetryCount(),
+                                                                Collections.emptyMap(),
+                                                                config.getUrlPrefix(),
+                                                                config.isHeadOnlyParsingActive(),
+                                                                testName,
+                                                                true),
+                                             FetchExecutor.io());
+    }
+
     private static String getUrl(String url, Fetch.Protocol protocol, String urlPrefix, String portFromAnnotation) {
         String prefix = urlPrefix.isEmpty() ? urlPrefix : urlPrefix + ".";
         String portFallBackCheck = StringUtils.isNotEmpty(portFromAnnotation) ? ":" + portFromAnnotation : ":" + config.getPort();
@@ -90,11 +188,63 @@ public class FetchedPage implements Page {
                                             int retriesOnTimeout,
                                             Map<String,String> cookie,
                                             String urlPrefix,
-                                            String testName) {
+                                            boolean headOnly,
+                                            String testName,
+                                            boolean registeringTest) {
 
         nameOfTest.set(testName);
 
-        final FetchRequestParameters cacheKey = FetchRequestParameters.builder()
+        final FetchRequestParameters cacheKey = requestOf(urlToFetch, method, requestBody, device, referrer,
+                                                          timeout, retriesOnTimeout, cookie, urlPrefix, headOnly);
+
+        if (config.isCacheDuplicatesActive() && !calledTestMethods.contains(testName)) {
+            FetchedPage cachedPage = fetchedPageCache.get(cacheKey);
+            if (cachedPage != null) {
+                logDuplicate(cacheKey, testName);
+                return cachedPage;
+            }
+            FetchedPage fetchedPage = fetchIntoCache(cacheKey, testName);
+            if (registeringTest) {
+                registerCalledTest(testName);
+            }
+            return fetchedPage;
+        }
+
+        FetchedPage fetchedPage = fetch(cacheKey);
+        if (registeringTest) {
+            registerCalledTest(testName);
+        }
+        return fetchedPage;
+    }
+
+    /**
+     * fetches a page into the cache without attributing the fetch to any test,
+     * a test requesting the same page afterwards will take it from the cache unless the test was called before,
+     * see {@link #registerCalledTest(String)}.
+     * does nothing if caching is deactivated or the page is already cached.
+     */
+    @SneakyThrows
+    public static void prefetch(String url, DeviceType device, Method method, String referrer, int timeout,
+                                int retriesOnTimeout, Map<String, String> cookie, Fetch.Protocol protocol,
+                                String urlPrefix, String port, boolean headOnly) {
+        FetchRequestParameters cacheKey = requestOf(getUrl(url, protocol, urlPrefix, port), method, Collections.emptyMap(),
+                                                    device, referrer, timeout, retriesOnTimeout, cookie, urlPrefix, headOnly);
+        if (config.isCacheDuplicatesActive() && fetchedPageCache.get(cacheKey) == null) {
+            fetchIntoCache(cacheKey, null);
+        }
+    }
+
+    private static FetchRequestParameters requestOf(String urlToFetch,
+                                                    Method method,
+                                                    Map<String, String> requestBody,
+                                                    DeviceType device,
+                                                    String referrer,
+                                                    int timeout,
+                                                    int retriesOnTimeout,
+                                                    Map<String,String> cookie,
+                                                    String urlPrefix,
+                                                    boolean headOnly) {
+        return FetchRequestParameters.builder()
                 .urlToFetch(urlToFetch)
                 .method(method)
                 .requestBody(requestBody)
@@ -104,49 +254,156 @@ public class FetchedPage implements Page {
                 .retriesOnTimeout(retriesOnTimeout)
                 .cookie(cookie)
                 .urlPrefix(urlPrefix)
+                .headOnly(headOnly)
                 .build();
+    }
 
-        if (fetchedPageCache.containsKey(cacheKey) && config.isCacheDuplicatesActive() && !calledTestMethods.contains(testName)) {
-            if (config.isCacheDuplicatesLogActive()) {
-                log.info("duplicate call for fetched page: {}\n\twill take page from cache while running test: {}", cacheKey, testName);
-            }
-            return fetchedPageCache.get(cacheKey);
-        } else {
-            Fetcher fetcher = Fetcher.builder()
-                    .method(method)
-                    .requestBody(requestBody)
-                    .deviceType(device)
-                    .referrer(referrer)
-                    .timeout(timeout)
-                    .retriesOnTimeout(retriesOnTimeout)
-                    .cookie(cookie)
-                    .build();
-            FetchedPage fetchedPage = new FetchedPage(urlToFetch, fetcher.fetch(urlToFetch), device, urlPrefix);
-            if (config.isCacheDuplicatesActive() && !calledTestMethods.contains(testName)) {
-                fetchedPageCache.put(cacheKey, fetchedPage);
+    /**
+     * @param testName test the fetch is attributed to, null if it is not attributed to any test
+     */
+    static FetchedPage fetchIntoCache(FetchRequestParameters cacheKey, String testName) throws Exception {
+        // concurrent callers of an identical request share a single fetch instead of all hitting the origin
+        return inFlightFetches.execute(cacheKey, () -> {
+            // the caller may have missed the cache right before the flight of another caller completed
+            FetchedPage fetchedMeanwhile = fetchedPageCache.peek(cacheKey);
+            if (fetchedMeanwhile != null) {
+                if (testName != null) {
+                    logDuplicate(cacheKey, testName);
+                }
+                return fetchedMeanwhile;
             }
-            calledTestMethods.add(testName);
-            return fetchedPage;
+            long start = System.nanoTime();
+            FetchedPage page = fetch(cacheKey);
+            fetchedPageCache.recordLoad(System.nanoTime() - start);
+            fetchedPageCache.put(cacheKey, page);
+            return page;
+        });
+    }
+
+    private static FetchedPage fetch(FetchRequestParameters request) throws IOException {
+        Fetcher fetcher = Fetcher.builder()
+                .method(request.getMethod())
+                .requestBody(request.getRequestBody())
+                .deviceType(request.getDevice())
+                .referrer(request.getReferrer())
+                .timeout(request.getTimeout())
+                .retriesOnTimeout(request.getRetriesOnTimeout())
+                .cookie(request.getCookie())
+                .headOnly(request.isHeadOnly())
+                .build();
+        FetchedPage page = new FetchedPage(request.getUrlToFetch(), fetcher.fetch(request.getUrlToFetch()), request.getDevice(),
+                                           request.getUrlPrefix(), request.isHeadOnly());
+        if (config.isEagerParsingActive() && page.isHtml()) {
+            page.parseInBackground();
+        }
+        return page;
+    }
+
+    /**
+     * @return hit, miss, eviction and load time counters of the cache of already fetched pages
+     */
+    public static PageCacheStats getCacheStats() {
+        return fetchedPageCache.stats();
+    }
+
+    /**
+     * @return how often pages have been parsed and how often a dropped document had to be parsed again
+     */
+    public static DocumentStats getDocumentStats() {
+        return documentRetention.stats();
+    }
+
+    private static void logDuplicate(FetchRequestParameters cacheKey, String testName) {
+        if (config.isCacheDuplicatesLogActive()) {
+            log.info("duplicate call for fetched page: {}\n\twill take page from cache while running test: {}", cacheKey, testName);
         }
     }
 
-    private FetchedPage(String url, Response response, DeviceType deviceType, String urlPrefix) {
+    private static long estimateRetainedSize(FetchedPage page) {
+        long bodySize = page.body.size();
+        return documentRetention.isStrong() ? bodySize + estimateDocumentSize(page) : bodySize;
+    }
+
+    private static long estimateDocumentSize(FetchedPage page) {
+        return page.body.size() * DOM_TO_BODY_SIZE_RATIO;
+    }
+
+    private FetchedPage(String url, Response response, DeviceType deviceType, String urlPrefix, boolean headOnly) {
         this.url = url;
-        this.response = response;
+        this.response = BufferedResponse.withoutBody(response);
+        this.body = new PageBody(response.bodyAsBytes(), response.charset(), bodyStore);
+        this.headOnly = headOnly;
         this.deviceType = deviceType;
         this.urlPrefix = urlPrefix;
     }
 
+    /**
+     * the document is shared by all tests using this page and by the remembered query results,
+     * it must not be modified
+     */
     @Override
-    public synchronized Document getDocument() {
-        if (!document.isPresent()) {
-            try {
-                document = Optional.of(response.parse());
-            } catch (IOException e) {
-                throw new ParseDocumentException("could not parse document", e);
+    public Document getDocument() {
+        return parsedDocument().document;
+    }
+
+    private ParsedDocument parsedDocument() {
+        ParsedDocument retained = retainedDocument();
+        if (retained != null) {
+            return retained;
+        }
+        synchronized (this) {
+            retained = retainedDocument();
+            if (retained == null) {
+                boolean reparse = parsed != null;
+                retained = parse();
+                parsed = documentRetention.retain(retained, estimateDocumentSize(this));
+                documentRetention.recordParse(reparse);
             }
+            return retained;
         }
-        return document.get(); //NOSONAR
+    }
+
+    private ParsedDocument retainedDocument() {
+        Supplier<ParsedDocument> retained = parsed;
+        return retained == null ? null : retained.get();
+    }
+
+    /**
+     * parses the page on the parse pool. a test querying the page while it is being parsed waits for the result,
+     * if the background parse has not started yet the test parses the page itself.
+     */
+    void parseInBackground() {
+        CompletableFuture.runAsync(this::parsedDocument, FetchExecutor.parse())
+                .exceptionally(e -> {
+                    // the test will run into the same problem and report it when it queries the page
+                    log.debug("could not parse {} in background: {}", url, e.getMessage());
+                    return null;
+                });
+    }
+
+    boolean isParsed() {
+        return retainedDocument() != null;
+    }
+
+    private boolean isHtml() {
+        return HeadSection.isHtml(response.contentType());
+    }
+
+    /**
+     * parsing happens once per page, queries of concurrent tests then share the published document.
+     * jsoup builds the child element lists of an element lazily and keeps them only weakly referenced,
+     * so queries of a shared document are not guaranteed to be free of races on building them.
+     */
+    private ParsedDocument parse() {
+        String baseUri = response.url().toExternalForm();
+        Document document = headOnly && isHtml() ? body.parseHead(baseUri) : body.parse(baseUri);
+        ElementIndex elementIndex = config.isElementIndexActive() ? new ElementIndex() : null;
+        if (elementIndex != null) {
+            for (Element element : document.getAllElements()) {
+                elementIndex.add(element);
+            }
+        }
+        return new ParsedDocument(document, elementIndex);
     }
 
     @Override
@@ -181,12 +438,66 @@ public class FetchedPage implements Page {
 
     @Override
     public String getPageBody() {
-        return response.body();
+        return body.text();
     }
 
     @Override
     public JSONObject getJsonResponse() {
-        return new JSONObject(response.body());
+        return (JSONObject) copyOf(parsedJson(JSONObject.class));
+    }
+
+    @Override
+    public JSONArray getJsonArrayResponse() {
+        return (JSONArray) copyOf(parsedJson(JSONArray.class));
+    }
+
+    @Override
+    public List<Object> json(String jsonPath) {
+        List<Object> selected = jsonSelections.computeIfAbsent(jsonPath, path -> JsonPath.compile(path).select(body.text()));
+        List<Object> copies = new ArrayList<>(selected.size());
+        selected.forEach(value -> copies.add(copyOf(value)));
+        return copies;
+    }
+
+    /**
+     * JSONObject and JSONArray are mutable and not thread safe, the values parsed once per page are shared
+     * by all tests using the page and never handed out. copying the tree is still cheaper than parsing the text.
+     */
+    private static Object copyOf(Object value) {
+        if (value instanceof JSONObject) {
+            JSONObject original = (JSONObject) value;
+            JSONObject copy = new JSONObject();
+            for (String key : original.keySet()) {
+                copy.put(key, copyOf(original.get(key)));
+            }
+            return copy;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray original = (JSONArray) value;
+            JSONArray copy = new JSONArray();
+            for (int i = 0; i < original.length(); i++) {
+                copy.put(copyOf(original.get(i)));
+            }
+            return copy;
+        }
+        // strings, numbers, booleans and JSONObject.NULL are immutable
+        return value;
+    }
+
+    private <T> T parsedJson(Class<T> type) {
+        Object parsed = json;
+        if (parsed == null) {
+            synchronized (this) {
+                if (json == null) {
+                    json = new JSONTokener(body.text()).nextValue();
+                }
+                parsed = json;
+            }
+        }
+        if (!type.isInstance(parsed)) {
+            throw new JSONException("response body of " + url + " is not a " + type.getSimpleName());
+        }
+        return type.cast(parsed);
     }
 
     @Override
@@ -236,36 +547,38 @@ public class FetchedPage implements Page {
 
     @Override
     public Elements getElements(String cssSelector) {
-        hasSelector(cssSelector);
-        return getDocument().select(cssSelector);
+        return new Elements(selectOrStoreIfMissing(cssSelector));
     }
 
     @Override
     public Element getElement(String cssSelector) {
-        hasSelector(cssSelector);
-        return getElements(cssSelector).first();
+        return selectOrStoreIfMissing(cssSelector).first();
     }
 
     @Override
     public Element getElementLastOf(String cssSelector) {
-        hasSelector(cssSelector);
-        return getElements(cssSelector).last();
+        return selectOrStoreIfMissing(cssSelector).last();
     }
 
     @Override
     public Element getElement(String cssSelector, int index) {
-        hasSelector(cssSelector);
-        return getElements(cssSelector).get(index);
+        return selectOrStoreIfMissing(cssSelector).get(index);
     }
 
     @Override
     public boolean isElementPresent(String cssSelector) {
-        return getElementCount(cssSelector) > 0;
+        return countUpTo(cssSelector, 1) > 0;
     }
 
     @Override
     public boolean isElementPresentNthTimes(String cssSelector, int numberOfOccurrences) {
-        return getElementCount(cssSelector) == numberOfOccurrences;
+        int limit = numberOfOccurrences == Integer.MAX_VALUE ? numberOfOccurrences : numberOfOccurrences + 1;
+        return countUpTo(cssSelector, limit) == numberOfOccurrences;
+    }
+
+    @Override
+    public PageQuery query() {
+        return new PageQuery(this::selectAll);
     }
 
     @Override
@@ -280,21 +593,137 @@ public class FetchedPage implements Page {
 
     @Override
     public int getElementCount(String cssSelector) {
-        return getDocument().select(cssSelector).size();
+        return countUpTo(cssSelector, Integer.MAX_VALUE);
+    }
+
+    /**
+     * page bodies are stored in the background, this waits until all bodies stored so far have been written
+     */
+    public static void flushStoredPageBodies() throws InterruptedException {
+        pageDumps.flush();
     }
 
     private void store(String folder) {
-        try {
-            FileUtils.writeStringToFile(new File("target/page-content-tester/" + folder,  getTestName() + ".html"), getPageBody());
-        } catch (IOException e) {
-            log.warn("could not store page body for url: {} while executing test: {}", getUrl(), getTestName());
-        }
+        pageDumps.store(folder, getTestName(), url, body.text());
     }
 
-    private void hasSelector(String cssSelector) {
-        if (getElementCount(cssSelector) == 0) {
+    private Elements selectOrStoreIfMissing(String cssSelector) {
+        Elements elements = select(cssSelector);
+        if (elements.isEmpty()) {
             store("not-found");
         }
+        return elements;
+    }
+
+    /**
+     * counts the matching elements by scanning the page source as long as the page has not been parsed yet,
+     * see {@link StreamingSelector}. falls back to the DOM for selectors that can not be streamed.
+     * @param limit counting may stop once this number of elements has been found
+     */
+    private int countUpTo(String cssSelector, int limit) {
+        if (isStreamingPossible(cssSelector) && streamedQueries.incrementAndGet() <= MAX_STREAMED_QUERIES_PER_PAGE) {
+            int count = StreamingSelector.count(body.text(), cssSelector, limit);
+            if (count != StreamingSelector.NOT_STREAMABLE) {
+                return count;
+            }
+        }
+        return select(cssSelector).size();
+    }
+
+    private boolean isStreamingPossible(String cssSelector) {
+        return config.isStreamingQueriesActive()
+                // the body may have been read completely anyway, elements behind the head must not be counted
+                && !headOnly
+                && !isParsed()
+                && isHtml()
+                && StreamingSelector.isStreamable(cssSelector);
+    }
+
+    /**
+     * @return the remembered result of the query, must not be modified or handed out
+     */
+    private Elements select(String cssSelector) {
+        ParsedDocument retained = parsedDocument();
+        return retained.selections.computeIfAbsent(cssSelector, css -> {
+            Elements indexed = retained.lookup(css);
+            return indexed != null ? indexed : SelectorCache.select(css, retained.document);
+        });
+    }
+
+    /**
+     * selects all not yet remembered queries in one traversal of the document
+     * @return the remembered results of all queries, must not be modified or handed out
+     */
+    private Map<String, Elements> selectAll(Set<String> cssSelectors) {
+        ParsedDocument retained = parsedDocument();
+        Document parsed = retained.document;
+        Map<String, Elements> results = new HashMap<>();
+        Map<String, Evaluator> pending = new LinkedHashMap<>();
+        for (String cssSelector : cssSelectors) {
+            Elements remembered = retained.selections.get(cssSelector);
+            Elements indexed = remembered == null ? retained.lookup(cssSelector) : null;
+            if (remembered != null) {
+                results.put(cssSelector, remembered);
+            } else if (indexed != null) {
+                results.put(cssSelector, indexed);
+            } else {
+                pending.put(cssSelector, SelectorCache.compile(cssSelector));
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        Map<String, Elements> found = new HashMap<>();
+        pending.keySet().forEach(cssSelector -> found.put(cssSelector, new Elements()));
+        new NodeTraversor(new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof Element) {
+                    pending.forEach((cssSelector, evaluator) -> {
+                        if (evaluator.matches(parsed, (Element) node)) {
+                            found.get(cssSelector).add((Element) node);
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                // matching is done on the way down
+            }
+        }).traverse(parsed);
+
+        found.forEach((cssSelector, elements) -> {
+            Elements remembered = retained.selections.putIfAbsent(cssSelector, elements);
+            results.put(cssSelector, remembered != null ? remembered : elements);
+        });
+        return results;
+    }
+
+    int selectionCount() {
+        ParsedDocument retained = retainedDocument();
+        return retained == null ? 0 : retained.selections.size();
+    }
+
+    /**
+     * a parsed document together with everything referencing its elements, kept or dropped as a whole
+     */
+    private static final class ParsedDocument {
+        private final Document document;
+        // built together with the document if activated, again whenever a dropped document is parsed again
+        private final ElementIndex index;
+        // results of css queries on this page, the same selectors are asserted again and again
+        private final Map<String, Elements> selections = new ConcurrentHashMap<>();
+
+        private ParsedDocument(Document document, ElementIndex index) {
+            this.document = document;
+            this.index = index;
+        }
+
+        private Elements lookup(String cssSelector) {
+            return index == null ? null : index.lookup(cssSelector);
+        }
     }
 
 }
@@ -1,17 +1,24 @@
 package pagecontenttester.fetcher;
 
-import static java.lang.System.setProperty;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static pagecontenttester.fetcher.DiskResponseCache.ETAG;
+import static pagecontenttester.fetcher.DiskResponseCache.LAST_MODIFIED;
 import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
 import static pagecontenttester.fetcher.FetchedPage.DeviceType.MOBILE;
 
 import java.io.IOException;
-import java.net.SocketTimeoutException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.file.Paths;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.jsoup.Connection;
 import org.jsoup.Connection.Method;
-import org.jsoup.Jsoup;
 
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
@@ -22,7 +29,22 @@ import pagecontenttester.fetcher.FetchedPage.DeviceType;
 @Builder
 public class Fetcher {
 
-    private static final Config CONFIG = new Config();
+    static {
+        // both are read once, when the jdk's http and ssl classes are initialized,
+        // so they are set before the first fetch instead of on each fetch, where every thread contends on System's lock
+        System.setProperty("sun.net.http.allowRestrictedHeaders", "true");  // jvm hack for adding any custom header
+        System.setProperty("javax.net.ssl.trustStore", "/etc/ssl/certs/java/cacerts");
+    }
+
+    private static final Config CONFIG = Config.get();
+    private static final FetchEngine ENGINE = FetchEngine.fromConfig(CONFIG);
+    private static final HostThrottle THROTTLE = new HostThrottle(CONFIG.getMaxRequestsInFlightPerHost(),
+                                                                  CONFIG.getRequestsPerSecondPerHost());
+    private static final RetryPolicy RETRY_POLICY = RetryPolicy.fromConfig(CONFIG);
+    private static final HedgingPolicy HEDGING = HedgingPolicy.fromConfig(CONFIG);
+    private static final DiskResponseCache DISK_CACHE = CONFIG.isDiskCacheActive()
+            ? new DiskResponseCache(Paths.get(CONFIG.getDiskCacheDirectory()))
+            : null;
 
     private final DeviceType deviceType;
     private final Method method;
@@ -34,42 +56,143 @@ public class Fetcher {
     private final String protocol;
     private final String urlPrefix;
     private final String port;
+    private final boolean headOnly;
+    private final DiskResponseCache diskCache;
+    private final FetchEngine engine;
+    private final HostThrottle throttle;
+    private final RetryPolicy retryPolicy;
+    private final HedgingPolicy hedging;
 
     public Connection.Response fetch(String url) throws IOException {
 
         log.info("fetching {} (UserAgent: {})", url, deviceType);
-        setProperty("sun.net.http.allowRestrictedHeaders", "true");  // jvm hack for adding any custom header
-        setProperty("javax.net.ssl.trustStore", "/etc/ssl/certs/java/cacerts");
 
+        String diskCacheKey = null;
+        BufferedResponse stored = null;
+        // a stored head only page can not answer a full request, and is too cheap to fetch to be worth storing
+        if (diskCache != null && method == Method.GET && !headOnly) {
+            diskCacheKey = requestParameters(url).normalizedKey();
+            stored = diskCache.load(diskCacheKey);
+        }
+
+        FetchEngine.Request request = FetchEngine.Request.builder()
+                .url(url)
+                .method(method)
+                .data(requestBody)
+                .headers(stored == null ? Collections.emptyMap() : validatorsOf(stored))
+                .cookies(cookie)
+                .userAgent(deviceType.equals(MOBILE) ? CONFIG.getUserAgent(MOBILE) : CONFIG.getUserAgent(DESKTOP))
+                .referrer(referrer)
+                .timeout(timeout)
+                .proxy(CONFIG.getProxy())
+                .followRedirects(CONFIG.isFollowingRedirects())
+                .ignoreContentType(CONFIG.isIgnoringContentType())
+                .headOnly(headOnly)
+                .build();
+
+        String host = new URL(url).getHost();
+        retryPolicy.recordFetch();
         int retryCount = 0;
 
         while(true) {
             try {
-                final Connection connection = Jsoup.connect(url)
-                        .validateTLSCertificates(false)
-                        .timeout(timeout)
-                        .userAgent(deviceType.equals(MOBILE) ? CONFIG.getUserAgent(MOBILE) : CONFIG.getUserAgent(DESKTOP))
-                        .ignoreHttpErrors(true)
-                        .proxy(CONFIG.getProxy())
-                        .followRedirects(CONFIG.isFollowingRedirects())
-                        .ignoreContentType(CONFIG.isIgnoringContentType())
-                        .method(method)
-                        .data(requestBody)
-                        .referrer(referrer);
-
-                if (!cookie.isEmpty()){
-                    connection.cookies(cookie);
+                Connection.Response response = hedging.execute(host, method, (cancellation, hedge) -> {
+                    if (hedge) {
+                        log.info("{} is slow, sending a second request", url);
+                    }
+                    return throttle.call(host, () -> engine.execute(request, cancellation));
+                });
+                if (!retryPolicy.isRetryable(response, method)) {
+                    return diskCacheKey == null ? response : revalidated(diskCacheKey, stored, response);
                 }
+                long delay = retryPolicy.delayBeforeRetry(retryCount, retriesOnTimeout, response.header("Retry-After"));
+                if (delay == RetryPolicy.NO_RETRY) {
+                    return response;
+                }
+                log.warn("{} responded with status {}, retry {} in {}ms", url, response.statusCode(), ++retryCount, delay);
+                sleep(delay);
 
-                return connection.execute();
-
-            } catch(SocketTimeoutException ste) {
-                if(retryCount > retriesOnTimeout) {
-                    throw ste;
+            } catch(IOException e) {
+                long delay = retryPolicy.isRetryable(e, method)
+                        ? retryPolicy.delayBeforeRetry(retryCount, retriesOnTimeout, null)
+                        : RetryPolicy.NO_RETRY;
+                if (delay == RetryPolicy.NO_RETRY) {
+                    throw e;
                 }
-                log.warn("SocketRead time out after {}. try", retryCount++);
+                log.warn("{} while fetching {}, retry {} in {}ms", e.getClass().getSimpleName(), url, ++retryCount, delay);
+                sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * @return time fetches had to wait because of the per host limits (fetch.max.per.host / fetch.rate.per.host)
+     */
+    public static QueueWaitStats getQueueWaitStats() {
+        return THROTTLE.stats();
+    }
+
+    /**
+     * @return how many slow fetches have been hedged by a second request and how often the hedge answered first
+     */
+    public static HedgeStats getHedgeStats() {
+        return HEDGING.stats();
+    }
+
+    /**
+     * fetches the url in the background, with the same retry behaviour as {@link #fetch(String)}
+     */
+    public CompletableFuture<Connection.Response> fetchAsync(String url) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetch(url);
+            } catch (IOException e) {
+                throw new CompletionException(e);
             }
+        }, FetchExecutor.io());
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for retry");
+        }
+    }
+
+    private FetchRequestParameters requestParameters(String url) {
+        return FetchRequestParameters.builder()
+                .urlToFetch(url)
+                .method(method)
+                .requestBody(requestBody)
+                .device(deviceType)
+                .referrer(referrer)
+                .cookie(cookie)
+                .build();
+    }
+
+    private static Map<String, String> validatorsOf(BufferedResponse stored) {
+        Map<String, String> validators = new HashMap<>();
+        if (stored.hasHeader(ETAG)) {
+            validators.put("If-None-Match", stored.header(ETAG));
+        }
+        if (stored.hasHeader(LAST_MODIFIED)) {
+            validators.put("If-Modified-Since", stored.header(LAST_MODIFIED));
+        }
+        return validators;
+    }
+
+    private Connection.Response revalidated(String diskCacheKey, BufferedResponse stored, Connection.Response response) {
+        if (response.statusCode() == HTTP_NOT_MODIFIED && stored != null) {
+            log.info("{} has not been modified, taking body from disk cache", stored.url());
+            diskCache.recordNotModified(stored);
+            return stored;
+        }
+        if (response.statusCode() == HTTP_OK && (response.hasHeader(ETAG) || response.hasHeader(LAST_MODIFIED))) {
+            return diskCache.store(diskCacheKey, response);
         }
+        return response;
     }
 
     public static class FetcherBuilder { //NOSONAR
@@ -84,5 +207,10 @@ public class Fetcher {
         private String protocol = CONFIG.getProtocol(); //NOSONAR
         private String urlPrefix = CONFIG.getUrlPrefix(); //NOSONAR
         private String port = CONFIG.getPort(); //NOSONAR
+        private DiskResponseCache diskCache = DISK_CACHE; //NOSONAR
+        private FetchEngine engine = ENGINE; //NOSONAR
+        private HostThrottle throttle = THROTTLE; //NOSONAR
+        private RetryPolicy retryPolicy = RETRY_POLICY; //NOSONAR
+        private HedgingPolicy hedging = HEDGING; //NOSONAR
     }
 }
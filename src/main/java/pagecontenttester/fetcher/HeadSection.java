@@ -0,0 +1,111 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Finds where the head of a html page ends, so that only the head has to be read and parsed
+ * by tests asserting on the title, meta tags, links and scripts of a page.
+ *
+ * The head ends with its end tag, the start or end tag of the body or the first start tag
+ * of an element that can not be part of the head, the tree builder starts the body there.
+ * Pages that are still being read are scanned on their bytes decoded as ISO-8859-1, so that positions
+ * in the string are byte offsets, which is fine for all charsets that encode markup as ASCII.
+ */
+final class HeadSection {
+
+    static final int NOT_FOUND = -1;
+
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    private static final Set<String> HEAD_ELEMENTS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "html", "head", "base", "basefont", "bgsound", "command", "link", "meta", "title",
+            "noscript", "noframes", "style", "script", "template")));
+
+    // their content is text, not markup
+    static final Set<String> RAW_TEXT = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "title", "noframes", "style", "script")));
+
+    private HeadSection() {
+    }
+
+    /**
+     * @return number of leading bytes of the page holding its head, or {@link #NOT_FOUND} if the head is not complete yet
+     */
+    static int end(byte[] html) {
+        return end(new String(html, ISO_8859_1));
+    }
+
+    /**
+     * @return number of leading chars of the page holding its head, or {@link #NOT_FOUND} if the head is not complete yet
+     */
+    static int end(String html) {
+        TagScanner scanner = new TagScanner(html);
+        while (scanner.next()) {
+            if (!scanner.isComplete()) {
+                return NOT_FOUND;
+            }
+            String name = scanner.getTagName();
+            if (scanner.isEndTag()) {
+                if ("head".equals(name)) {
+                    return scanner.getPosition();
+                }
+                if ("body".equals(name) || "html".equals(name)) {
+                    return scanner.getTagStart();
+                }
+            } else if (!HEAD_ELEMENTS.contains(name)) {
+                return scanner.getTagStart();
+            } else if (RAW_TEXT.contains(name)) {
+                scanner.skipRawText(name);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * reads the stream until the head is complete, the rest of the page is left unread
+     * @return the bytes of the head, or of the whole page if its head does not end
+     */
+    static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        int length;
+        while ((length = in.read(buffer)) != -1) {
+            read.write(buffer, 0, length);
+            // a tag ending the head can only have been completed by a chunk containing its '>'
+            if (containsTagEnd(buffer, length)) {
+                byte[] html = read.toByteArray();
+                int end = end(html);
+                if (end != NOT_FOUND) {
+                    return Arrays.copyOf(html, end);
+                }
+            }
+        }
+        return read.toByteArray();
+    }
+
+    static boolean isHtml(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ENGLISH);
+        return type.startsWith("text/html") || type.startsWith("application/xhtml+xml");
+    }
+
+    private static boolean containsTagEnd(byte[] buffer, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '>') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package pagecontenttester.fetcher;
+
+import lombok.Value;
+
+/**
+ * Snapshot of how often slow fetches have been hedged by a second request.
+ */
+@Value
+public class HedgeStats {
+
+    private long requestCount;
+    private long hedgedCount;
+    private long hedgeWonCount;
+
+    public double hedgeRate() {
+        return requestCount == 0 ? 0.0 : (double) hedgedCount / requestCount;
+    }
+}
@@ -0,0 +1,253 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jsoup.Connection;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Sends a second, identical request if the first one is slower than usual and takes whichever answers first.
+ *
+ * The hedge is sent after a fixed delay, or if no delay is configured, after the given percentile of the latencies
+ * observed for the host. Only GET and HEAD requests are hedged and hedges are capped to a share of all requests,
+ * so a slow host is not hit with twice the load. Once one request answered, the other one is cancelled,
+ * which aborts it if the fetch engine is able to, see {@link FetchEngine#execute(FetchEngine.Request, Cancellation)}.
+ *
+ * A request that can not be hedged runs on the calling thread. Otherwise the first request runs on the executor,
+ * as the caller has to be able to take the answer of the hedge while the first request is still blocked.
+ */
+class HedgingPolicy {
+
+    static final int MIN_SAMPLES = 20;
+    private static final int SAMPLES_PER_HOST = 128;
+
+    private final boolean active;
+    private final long delayInMillis;
+    private final double percentile;
+    private final double maxHedgedShare;
+    private final ExecutorService executor;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final AtomicLong hedged = new AtomicLong();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    /**
+     * @param delayInMillis time to wait before hedging, 0 to use the host's latency percentile instead
+     * @param percentile latency percentile of the host after which a request is hedged (e.g. 95)
+     * @param maxHedgedPercent max share of requests that may be hedged in percent
+     */
+    HedgingPolicy(boolean active, long delayInMillis, double percentile, double maxHedgedPercent, ExecutorService executor) {
+        this.active = active;
+        this.delayInMillis = delayInMillis;
+        this.percentile = percentile;
+        this.maxHedgedShare = maxHedgedPercent / 100;
+        this.executor = executor;
+    }
+
+    static HedgingPolicy fromConfig(Config config) {
+        return new HedgingPolicy(config.isHedgingActive(),
+                                 config.getHedgeDelayInMillis(),
+                                 config.getHedgePercentile(),
+                                 config.getHedgeMaxPercent(),
+                                 FetchExecutor.hedge());
+    }
+
+    Connection.Response execute(String host, Connection.Method method, FetchCall call) throws IOException {
+        LatencyWindow window = latencies.computeIfAbsent(host.toLowerCase(Locale.ENGLISH), h -> new LatencyWindow());
+        if (!active || (method != Connection.Method.GET && method != Connection.Method.HEAD)) {
+            return timed(window, call, new Cancellation(), false);
+        }
+        requests.increment();
+        long delay = delayInMillis > 0 ? delayInMillis : window.percentile(percentile);
+        if (delay < 0 || !isHedgeAllowed()) {
+            return timed(window, call, new Cancellation(), false);
+        }
+
+        FirstSuccess first = new FirstSuccess();
+        Cancellation primaryCancellation = new Cancellation();
+        Cancellation hedgeCancellation = new Cancellation();
+        Future<?> primary = executor.submit(() -> first.attempt(window, call, primaryCancellation, false));
+        Future<?> hedge = null;
+        try {
+            try {
+                return first.response.get(delay, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) { // NOSONAR
+                if (!tryAcquireHedge() || !first.addAttempt()) {
+                    return await(first.response);
+                }
+            }
+            hedge = executor.submit(() -> first.attempt(window, call, hedgeCancellation, true));
+            Connection.Response response = await(first.response);
+            if (first.hedgeWon.get()) {
+                hedgesWon.increment();
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            throw ioExceptionOf(e.getCause());
+        } finally {
+            // the answer is taken, the request still running is of no use anymore
+            primary.cancel(false);
+            primaryCancellation.cancel();
+            if (hedge != null) {
+                hedge.cancel(false);
+            }
+            hedgeCancellation.cancel();
+        }
+    }
+
+    private boolean isHedgeAllowed() {
+        return hedged.get() < maxHedgedShare * requests.sum();
+    }
+
+    /**
+     * checks and counts a hedge in one step, concurrent requests must not exceed the max share together
+     */
+    private boolean tryAcquireHedge() {
+        long current;
+        do {
+            current = hedged.get();
+            if (current >= maxHedgedShare * requests.sum()) {
+                return false;
+            }
+        } while (!hedged.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    HedgeStats stats() {
+        return new HedgeStats(requests.sum(), hedged.get(), hedgesWon.sum());
+    }
+
+    private static Connection.Response timed(LatencyWindow window, FetchCall call, Cancellation cancellation,
+                                            boolean hedge) throws IOException {
+        long start = System.nanoTime();
+        Connection.Response response = call.execute(cancellation, hedge);
+        window.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return response;
+    }
+
+    /**
+     * Completes with the first successful response of the request and its hedge, fails only if all attempts fail.
+     */
+    private static final class FirstSuccess {
+
+        private final CompletableFuture<Connection.Response> response = new CompletableFuture<>();
+        private final AtomicInteger attemptsRunning = new AtomicInteger(1);
+        private final AtomicBoolean answered = new AtomicBoolean();
+        private final AtomicBoolean hedgeWon = new AtomicBoolean();
+
+        /**
+         * @return false if all attempts have failed already, the failure is final then
+         */
+        boolean addAttempt() {
+            int running;
+            do {
+                running = attemptsRunning.get();
+                if (running == 0) {
+                    return false;
+                }
+            } while (!attemptsRunning.compareAndSet(running, running + 1));
+            return true;
+        }
+
+        void attempt(LatencyWindow window, FetchCall call, Cancellation cancellation, boolean isHedge) {
+            try {
+                Connection.Response answer = timed(window, call, cancellation, isHedge);
+                // the winner is known before the caller sees the response
+                if (answered.compareAndSet(false, true)) {
+                    hedgeWon.set(isHedge);
+                    response.complete(answer);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (attemptsRunning.decrementAndGet() == 0) {
+                    response.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static Connection.Response await(CompletableFuture<Connection.Response> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for response");
+        } catch (ExecutionException e) {
+            throw ioExceptionOf(e.getCause());
+        }
+    }
+
+    private static IOException ioExceptionOf(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        return new IOException(cause);
+    }
+
+    @FunctionalInterface
+    interface FetchCall {
+        /**
+         * @param cancellation to be passed to the fetch engine, cancelled once the other request answered
+         * @param hedge true for the second request sent because the first one is slow
+         */
+        Connection.Response execute(Cancellation cancellation, boolean hedge) throws IOException;
+    }
+
+    /**
+     * Latencies of the most recent requests to one host.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] samples = new long[SAMPLES_PER_HOST];
+        private int count;
+        private int next;
+
+        synchronized void record(long latencyInMillis) {
+            samples[next] = latencyInMillis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return latency percentile in millis (at least 1) or -1 if there are not enough samples yet
+         */
+        long percentile(double percentile) {
+            long[] sorted;
+            synchronized (this) {
+                if (count < MIN_SAMPLES) {
+                    return -1;
+                }
+                sorted = Arrays.copyOf(samples, count);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return Math.max(1, sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+        }
+    }
+}
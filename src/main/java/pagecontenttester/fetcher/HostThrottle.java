@@ -0,0 +1,101 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Limits the number of requests in flight and the requests per second for each host.
+ * Every host has its own queue, so a throttled host does not hold back requests to other hosts.
+ * Within a host, waiting requests are served first come first served.
+ */
+class HostThrottle {
+
+    private final int maxInFlightPerHost;
+    private final double requestsPerSecondPerHost;
+    private final Map<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder totalWaitTime = new LongAdder();
+    private final LongAccumulator maxWaitTime = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param maxInFlightPerHost max number of concurrent requests per host, 0 for unlimited
+     * @param requestsPerSecondPerHost max number of requests started per second and host, 0 for unlimited
+     */
+    HostThrottle(int maxInFlightPerHost, double requestsPerSecondPerHost) {
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.requestsPerSecondPerHost = requestsPerSecondPerHost;
+    }
+
+    boolean isActive() {
+        return maxInFlightPerHost > 0 || requestsPerSecondPerHost > 0;
+    }
+
+    /**
+     * blocks until a request to the host is allowed
+     * @return permit that has to be closed once the request is done
+     */
+    Permit acquire(String host) throws InterruptedIOException {
+        if (!isActive()) {
+            return () -> { };
+        }
+        HostLimit limit = hosts.computeIfAbsent(host.toLowerCase(Locale.ENGLISH), h -> new HostLimit());
+        long start = System.nanoTime();
+        try {
+            if (limit.inFlight != null) {
+                limit.inFlight.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a free slot for " + host);
+        }
+        if (limit.rate != null) {
+            limit.rate.acquire();
+        }
+        long waitTime = System.nanoTime() - start;
+        acquisitions.increment();
+        totalWaitTime.add(waitTime);
+        maxWaitTime.accumulate(waitTime);
+        return limit.inFlight == null ? () -> { } : limit.inFlight::release;
+    }
+
+    /**
+     * runs the call once a request to the host is allowed and frees its slot afterwards
+     */
+    <T> T call(String host, ThrottledCall<T> call) throws IOException {
+        Permit permit = acquire(host);
+        try {
+            return call.execute();
+        } finally {
+            permit.close();
+        }
+    }
+
+    QueueWaitStats stats() {
+        return new QueueWaitStats(acquisitions.sum(), totalWaitTime.sum(), maxWaitTime.get());
+    }
+
+    @FunctionalInterface
+    interface ThrottledCall<T> {
+        T execute() throws IOException;
+    }
+
+    @FunctionalInterface
+    interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final class HostLimit {
+        private final Semaphore inFlight = maxInFlightPerHost > 0 ? new Semaphore(maxInFlightPerHost, true) : null;
+        private final RateLimiter rate = requestsPerSecondPerHost > 0 ? RateLimiter.create(requestsPerSecondPerHost) : null;
+    }
+}
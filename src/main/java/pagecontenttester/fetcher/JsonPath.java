@@ -0,0 +1,278 @@
+package pagecontenttester.fetcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * Extracts the values at a path from a json text in a single pass, without building the tree of the whole text.
+ * Only the matching values are built, as {@link org.json.JSONObject}, {@link org.json.JSONArray}, String, Number,
+ * Boolean or {@link org.json.JSONObject#NULL}.
+ *
+ * Paths start with $ followed by member names (.name or ['name']), array indexes ([0]) and wildcards (.* or [*])
+ * matching all members of an object or all items of an array, e.g. $.items[*].price or $[0]['first name'].
+ */
+final class JsonPath {
+
+    private static final Object WILDCARD = new Object();
+
+    private final String path;
+    // member names, array indexes as Integer or the WILDCARD
+    private final List<Object> steps;
+
+    private JsonPath(String path, List<Object> steps) {
+        this.path = path;
+        this.steps = steps;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the path is malformed or uses unsupported syntax
+     */
+    static JsonPath compile(String path) {
+        if (path == null || !path.startsWith("$")) {
+            throw new IllegalArgumentException("json path must start with $: " + path);
+        }
+        List<Object> steps = new ArrayList<>();
+        int position = 1;
+        while (position < path.length()) {
+            char c = path.charAt(position);
+            if (c == '.' && path.startsWith("..", position)) {
+                throw new IllegalArgumentException("recursive descent is not supported: " + path);
+            }
+            if (c == '.') {
+                int end = position + 1;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                steps.add(nameOrWildcard(path, path.substring(position + 1, end)));
+                position = end;
+            } else if (c == '[') {
+                int end = path.indexOf(']', position);
+                if (end < 0) {
+                    throw new IllegalArgumentException("missing ] in json path: " + path);
+                }
+                steps.add(bracketStep(path, path.substring(position + 1, end).trim()));
+                position = end + 1;
+            } else {
+                throw new IllegalArgumentException("unexpected '" + c + "' at " + position + " of json path: " + path);
+            }
+        }
+        return new JsonPath(path, Collections.unmodifiableList(steps));
+    }
+
+    private static Object nameOrWildcard(String path, String name) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("empty member name in json path: " + path);
+        }
+        return "*".equals(name) ? WILDCARD : name;
+    }
+
+    private static Object bracketStep(String path, String step) {
+        if ("*".equals(step)) {
+            return WILDCARD;
+        }
+        if (step.length() >= 2 && (step.charAt(0) == '\'' || step.charAt(0) == '"') && step.charAt(step.length() - 1) == step.charAt(0)) {
+            return step.substring(1, step.length() - 1);
+        }
+        try {
+            return Integer.valueOf(step);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("unsupported step [" + step + "] in json path: " + path, e);
+        }
+    }
+
+    /**
+     * @return the matching values in document order
+     * @throws JSONException if the text is not valid json
+     */
+    List<Object> select(String json) {
+        Scan scan = new Scan(json);
+        scan.skipWhitespace();
+        scan.value(0);
+        scan.skipWhitespace();
+        if (scan.position < json.length()) {
+            throw scan.error("end of json text");
+        }
+        return scan.matches;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private final class Scan {
+
+        private final String json;
+        private final List<Object> matches = new ArrayList<>();
+        private int position;
+
+        private Scan(String json) {
+            this.json = json;
+        }
+
+        /**
+         * @param step number of path steps matched by the value's ancestors
+         */
+        private void value(int step) {
+            if (step == steps.size()) {
+                int start = position;
+                skipValue();
+                matches.add(new JSONTokener(json.substring(start, position)).nextValue());
+                return;
+            }
+            char c = peek();
+            if (c == '{') {
+                object(step);
+            } else if (c == '[') {
+                array(step);
+            } else {
+                skipValue();
+            }
+        }
+
+        private void object(int step) {
+            Object expected = steps.get(step);
+            position++;
+            skipWhitespace();
+            if (peek() == '}') {
+                position++;
+                return;
+            }
+            while (true) {
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (expected == WILDCARD || name.equals(expected)) {
+                    value(step + 1);
+                } else {
+                    skipValue();
+                }
+                if (endOfContainer('}')) {
+                    return;
+                }
+            }
+        }
+
+        private void array(int step) {
+            Object expected = steps.get(step);
+            position++;
+            skipWhitespace();
+            if (peek() == ']') {
+                position++;
+                return;
+            }
+            for (int index = 0; ; index++) {
+                if (expected == WILDCARD || (expected instanceof Integer && (Integer) expected == index)) {
+                    value(step + 1);
+                } else {
+                    skipValue();
+                }
+                if (endOfContainer(']')) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return true if the container has been closed, false if another member or item follows
+         */
+        private boolean endOfContainer(char close) {
+            skipWhitespace();
+            char c = peek();
+            position++;
+            if (c == close) {
+                return true;
+            }
+            if (c != ',') {
+                position--;
+                throw error("',' or '" + close + "'");
+            }
+            skipWhitespace();
+            return false;
+        }
+
+        private void skipValue() {
+            char c = peek();
+            if (c == '{' || c == '[') {
+                skipContainer();
+            } else if (c == '"') {
+                skipString();
+            } else {
+                int start = position;
+                while (position < json.length() && ",:]} \t\r\n".indexOf(json.charAt(position)) < 0) {
+                    position++;
+                }
+                if (start == position) {
+                    throw error("a value");
+                }
+            }
+        }
+
+        private void skipContainer() {
+            int depth = 0;
+            while (position < json.length()) {
+                char c = json.charAt(position);
+                if (c == '"') {
+                    skipString();
+                    continue;
+                }
+                position++;
+                if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return;
+                }
+            }
+            throw error("end of object or array");
+        }
+
+        private String string() {
+            int start = position;
+            skipString();
+            String quoted = json.substring(start + 1, position - 1);
+            return quoted.indexOf('\\') < 0 ? quoted : (String) new JSONTokener(json.substring(start, position)).nextValue();
+        }
+
+        private void skipString() {
+            expect('"');
+            while (position < json.length()) {
+                char c = json.charAt(position++);
+                if (c == '\\') {
+                    position++;
+                } else if (c == '"') {
+                    return;
+                }
+            }
+            throw error("end of string");
+        }
+
+        private void expect(char expected) {
+            if (peek() != expected) {
+                throw error("'" + expected + "'");
+            }
+            position++;
+        }
+
+        private char peek() {
+            if (position >= json.length()) {
+                throw error("more json text");
+            }
+            return json.charAt(position);
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private JSONException error(String expected) {
+            return new JSONException("expected " + expected + " at " + position + " while selecting " + path);
+        }
+    }
+}
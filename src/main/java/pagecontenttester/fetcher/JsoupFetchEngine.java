@@ -0,0 +1,39 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+/**
+ * Opens a new jsoup connection for every request.
+ * jsoup keeps a single trust-all socket factory for all connections that do not validate certificates,
+ * it has no way to hand it the shared {@link TlsContext}.
+ */
+class JsoupFetchEngine implements FetchEngine {
+
+    @Override
+    public Connection.Response execute(Request request) throws IOException {
+        final Connection connection = Jsoup.connect(request.getUrl())
+                .validateTLSCertificates(false)
+                .timeout(request.getTimeout())
+                .userAgent(request.getUserAgent())
+                .ignoreHttpErrors(true)
+                .proxy(request.getProxy())
+                .followRedirects(request.isFollowRedirects())
+                .ignoreContentType(request.isIgnoreContentType())
+                .method(request.getMethod())
+                .data(request.getData())
+                .referrer(request.getReferrer());
+
+        if (!request.getCookies().isEmpty()) {
+            connection.cookies(request.getCookies());
+        }
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.header(header.getKey(), header.getValue());
+        }
+
+        return connection.execute();
+    }
+}
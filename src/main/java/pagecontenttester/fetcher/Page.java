@@ -1,7 +1,10 @@
 package pagecontenttester.fetcher;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -20,7 +23,7 @@ public interface Page {
     /**
      * get DOM Element of first CSS-selector match
      * @param cssSelector to pick DOM-element
-     * @return Element
+     * @return Element of the shared document, not to be modified
      */
     Element getElement(String cssSelector);
 
@@ -28,21 +31,21 @@ public interface Page {
      * get DOM Element of CSS-selector match by index
      * @param cssSelector to pick DOM-element
      * @param index - number of element, starting from 0 and from top to bottom of the DOM
-     * @return Element
+     * @return Element of the shared document, not to be modified
      */
     Element getElement(String cssSelector, int index);
 
     /**
      * get DOM Elements of matching CSS-selectors
      * @param cssSelector to pick DOM-element
-     * @return Elements
+     * @return Elements of the shared document, the list may be changed but not the elements
      */
     Elements getElements(String cssSelector);
 
     /**
      * get last DOM Element of matching CSS-selector
      * @param cssSelector to pick DOM-element
-     * @return Element
+     * @return Element of the shared document, not to be modified
      */
     Element getElementLastOf(String cssSelector);
 
@@ -59,6 +62,19 @@ public interface Page {
      */
     boolean isElementPresentNthTimes(String cssSelector, int numberOfOccurrences);
 
+    /**
+     * start a batch of css queries that are answered by a single pass over the DOM.
+     * pages not overriding this answer each query of the batch by {@link #getElements(String)}
+     * @return PageQuery to add the queries to
+     */
+    default PageQuery query() {
+        return new PageQuery(cssSelectors -> {
+            Map<String, Elements> results = new HashMap<>();
+            cssSelectors.forEach(cssSelector -> results.put(cssSelector, getElements(cssSelector)));
+            return results;
+        });
+    }
+
     String getTestName();
 
     void storePageBody();
@@ -82,7 +98,8 @@ public interface Page {
     String getStatusMessage();
 
     /**
-     * @return the raw Document object including all DOM specific data
+     * @return the raw Document object including all DOM specific data,
+     * shared by all tests fetching the same page and therefore not to be modified
      */
     Document getDocument();
 
@@ -161,7 +178,27 @@ public interface Page {
     Map<String, String> getCookies();
 
     /**
+     * the body is parsed once per page, every call returns a copy of its own that may be modified
      * @return the response body in JSON format
      */
     JSONObject getJsonResponse();
+
+    /**
+     * same as {@link #getJsonResponse()} for responses consisting of a JSON array.
+     * pages not overriding this parse {@link #getPageBody()} on every call
+     * @return the response body in JSON format
+     */
+    default JSONArray getJsonArrayResponse() {
+        return new JSONArray(getPageBody());
+    }
+
+    /**
+     * extracts values from a JSON response in a single pass over its body, without parsing all of it
+     * @param jsonPath e.g. $.items[*].price, supports .name, ['name'], [index] and the wildcards .* and [*]
+     * @return matching values in the order of the body, JSONObject, JSONArray, String, Number, Boolean or JSONObject.NULL,
+     * a new list of copies on every call
+     */
+    default List<Object> json(String jsonPath) {
+        return JsonPath.compile(jsonPath).select(getPageBody());
+    }
 }
@@ -0,0 +1,172 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_16BE;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attributes;
+import org.jsoup.nodes.Document;
+
+/**
+ * Body of a fetched page, decoded once and shared by the raw body view, the html parser, json and streaming queries.
+ * The charset is detected the way jsoup does when parsing bytes: a byte order mark wins over the charset
+ * of the content type, which wins over a charset declared by a meta tag or an xml declaration, UTF-8 otherwise.
+ * The raw bytes are dropped as soon as the body has been decoded.
+ * If a {@link CompressedBodyStore} is given, the bytes are moved there right away and the body is decoded
+ * again whenever its text has been dropped from the store's hot set, with the charset detected the first time.
+ */
+final class PageBody {
+
+    private static final Pattern XML_ENCODING = Pattern.compile("^<\\?xml[^>]*\\bencoding\\s*=\\s*[\"']?([\\w.:-]+)");
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final int size;
+    private final String declaredCharset;
+    private final CompressedBodyStore store;
+    private final CompressedBodyStore.Handle stored;
+    // guarded by this, null once decoded or if stored
+    private byte[] bytes;
+    // null if stored
+    private volatile String text;
+    private volatile Charset charset;
+
+    PageBody(byte[] bytes, String declaredCharset) {
+        this(bytes, declaredCharset, null);
+    }
+
+    /**
+     * @param store keeps the body off heap, null to keep it on heap
+     */
+    PageBody(byte[] bytes, String declaredCharset, CompressedBodyStore store) {
+        this.size = bytes.length;
+        this.declaredCharset = declaredCharset;
+        this.store = store;
+        this.stored = store == null ? null : store.put(bytes);
+        this.bytes = store == null ? bytes : null;
+    }
+
+    /**
+     * @return number of bytes the page has been sent with
+     */
+    int size() {
+        return size;
+    }
+
+    String text() {
+        String decoded = text;
+        if (decoded != null) {
+            return decoded;
+        }
+        return stored != null ? store.text(stored, this::decode) : decodeOnce();
+    }
+
+    Document parse(String baseUri) {
+        Document document = Jsoup.parse(text(), baseUri);
+        document.outputSettings().charset(charset);
+        return document;
+    }
+
+    /**
+     * parses the head of the page only, see {@link HeadSection}. an empty body is added by the parser
+     */
+    Document parseHead(String baseUri) {
+        String html = text();
+        int end = HeadSection.end(html);
+        Document document = Jsoup.parse(end == HeadSection.NOT_FOUND ? html : html.substring(0, end), baseUri);
+        document.outputSettings().charset(charset);
+        return document;
+    }
+
+    private synchronized String decodeOnce() {
+        if (text == null) {
+            text = decode(bytes);
+            bytes = null;
+        }
+        return text;
+    }
+
+    private String decode(byte[] raw) {
+        Charset known = charset;
+        if (known != null) {
+            return withoutByteOrderMark(new String(raw, known));
+        }
+        Charset detected = charsetOfByteOrderMark(raw);
+        if (detected == null) {
+            detected = supported(declaredCharset);
+        }
+        String decoded;
+        if (detected != null) {
+            decoded = new String(raw, detected);
+        } else {
+            detected = UTF_8;
+            decoded = new String(raw, UTF_8);
+            Charset declaredInPage = charsetDeclaredIn(decoded);
+            if (declaredInPage != null && !declaredInPage.equals(UTF_8)) {
+                detected = declaredInPage;
+                decoded = new String(raw, declaredInPage);
+            }
+        }
+        charset = detected;
+        return withoutByteOrderMark(decoded);
+    }
+
+    private static String withoutByteOrderMark(String decoded) {
+        return !decoded.isEmpty() && decoded.charAt(0) == BYTE_ORDER_MARK ? decoded.substring(1) : decoded;
+    }
+
+    private static Charset charsetOfByteOrderMark(byte[] bytes) {
+        if (bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+            return UTF_8;
+        }
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF) {
+            return UTF_16BE;
+        }
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xFE) {
+            return UTF_16LE;
+        }
+        return null;
+    }
+
+    /**
+     * like jsoup only the first meta tag declaring a content type or charset is taken into account,
+     * other than jsoup only meta tags in the head are looked at, no document has to be built for that
+     */
+    private static Charset charsetDeclaredIn(String html) {
+        int endOfHead = HeadSection.end(html);
+        TagScanner scanner = new TagScanner(endOfHead == HeadSection.NOT_FOUND ? html : html.substring(0, endOfHead));
+        while (scanner.next()) {
+            String name = scanner.getTagName();
+            if (scanner.isEndTag()) {
+                continue;
+            }
+            Attributes attributes = scanner.getAttributes();
+            if ("meta".equals(name) && ("content-type".equalsIgnoreCase(attributes.get("http-equiv")) || attributes.hasKey("charset"))) {
+                String charset = BufferedResponse.charsetOf(attributes.get("content"));
+                return supported(charset != null ? charset : attributes.get("charset"));
+            }
+            if (HeadSection.RAW_TEXT.contains(name)) {
+                scanner.skipRawText(name);
+            }
+        }
+        Matcher xmlDeclaration = XML_ENCODING.matcher(html);
+        return xmlDeclaration.find() ? supported(xmlDeclaration.group(1)) : null;
+    }
+
+    private static Charset supported(String charsetName) {
+        if (charsetName == null) {
+            return null;
+        }
+        String name = charsetName.trim().replaceAll("[\"']", "");
+        try {
+            return !name.isEmpty() && Charset.isSupported(name) ? Charset.forName(name) : null;
+        } catch (IllegalCharsetNameException e) { // NOSONAR
+            return null;
+        }
+    }
+}
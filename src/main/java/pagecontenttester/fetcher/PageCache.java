@@ -0,0 +1,58 @@
+package pagecontenttester.fetcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Holds fetched pages for reuse by subsequent identical requests.
+ * Implementations decide how many pages are kept and which pages are evicted first.
+ */
+interface PageCache<K, V> {
+
+    /**
+     * @return cached value or null if not present (or expired)
+     */
+    V get(K key);
+
+    /**
+     * @return cached value or null if not present (or expired), without counting a hit or miss
+     */
+    V peek(K key);
+
+    void put(K key, V value);
+
+    /**
+     * @param loadTimeInNanos time spent to load a value that was missing in the cache
+     */
+    void recordLoad(long loadTimeInNanos);
+
+    PageCacheStats stats();
+
+    void invalidateAll();
+
+    static <K, V> PageCache<K, V> fromConfig(Config config, ToLongFunction<V> weigher) {
+        return new BoundedPageCache<>(EvictionPolicy.of(config.getCacheEvictionPolicy()),
+                                      config.getCacheMaxEntries(),
+                                      config.getCacheMaxWeightInBytes(),
+                                      TimeUnit.SECONDS.toNanos(config.getCacheTtlInSeconds()),
+                                      weigher,
+                                      System::nanoTime);
+    }
+
+    enum EvictionPolicy {
+        LRU,
+        TINY_LFU;
+
+        static EvictionPolicy of(String name) {
+            if ("lru".equalsIgnoreCase(name)) {
+                return LRU;
+            }
+            if ("tinylfu".equalsIgnoreCase(name) || "w-tinylfu".equalsIgnoreCase(name)) {
+                return TINY_LFU;
+            }
+            throw new IllegalArgumentException("unknown cache.eviction " + name + ", use lru or tinylfu");
+        }
+    }
+}
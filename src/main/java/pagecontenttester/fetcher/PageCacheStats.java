@@ -0,0 +1,33 @@
+package pagecontenttester.fetcher;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the page cache counters.
+ */
+@Value
+public class PageCacheStats {
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long loadCount;
+    private long totalLoadTimeInNanos;
+    private long entryCount;
+    private long weightedSize;
+
+    /**
+     * @return ratio of requests that have been answered from cache, 1.0 if there have been no requests yet
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    /**
+     * @return average time in nanos spent to fetch a page that was not cached yet
+     */
+    public double averageLoadPenalty() {
+        return loadCount == 0 ? 0.0 : (double) totalLoadTimeInNanos / loadCount;
+    }
+}
@@ -0,0 +1,152 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+import pagecontenttester.configurations.Config;
+
+/**
+ * Writes page bodies stored by tests in the background, disk io does not add to the duration of tests.
+ *
+ * Each distinct body is written once, to bodies/[sha-256 of the body].html(.gz). Every test storing a body
+ * is listed with the url and the body file in the index.tsv of the folder the body has been stored to.
+ * Uncompressed bodies are additionally hard linked (copied if the file system does not support links)
+ * to [folder]/[test name].html, where they have always been stored.
+ * If the queue of bodies to write is full the test writes the body itself.
+ * Bodies still queued are written when the JVM shuts down.
+ */
+@Slf4j
+final class PageDumpWriter {
+
+    static final String BODIES = "bodies";
+    static final String INDEX = "index.tsv";
+
+    private static final int SHUTDOWN_TIMEOUT_IN_SECONDS = 30;
+
+    private final Path directory;
+    private final boolean compress;
+    private final ThreadPoolExecutor writer;
+    // bodies stored but not written yet, notified when it drops to zero
+    private final AtomicInteger pending = new AtomicInteger();
+    // guarded by this
+    private final Set<String> writtenBodies = new HashSet<>();
+    private final Set<String> indexedDumps = new HashSet<>();
+
+    PageDumpWriter(Path directory, boolean compress, int queueCapacity) {
+        this.directory = directory;
+        this.compress = compress;
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                                             new ThreadFactoryBuilder().setNameFormat("page-content-tester-dump-%d").setDaemon(true).build(),
+                                             new ThreadPoolExecutor.CallerRunsPolicy());
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "page-dump-flush"));
+    }
+
+    static PageDumpWriter fromConfig(Config config) {
+        return new PageDumpWriter(Paths.get(config.getDumpDirectory()), config.isDumpCompressionActive(), config.getDumpQueueCapacity());
+    }
+
+    void store(String folder, String testName, String url, String body) {
+        pending.incrementAndGet();
+        writer.execute(() -> {
+            try {
+                write(folder, testName, url, body);
+            } finally {
+                if (pending.decrementAndGet() == 0) {
+                    synchronized (pending) {
+                        pending.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * blocks until no stored body is waiting to be written anymore
+     */
+    void flush() throws InterruptedException {
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                pending.wait();
+            }
+        }
+    }
+
+    private void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("{} page bodies have not been stored in time", writer.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void write(String folder, String testName, String url, String body) {
+        String hash = Hashing.sha256().hashString(body, UTF_8).toString();
+        Path bodyFile = directory.resolve(BODIES).resolve(hash + (compress ? ".html.gz" : ".html"));
+        try {
+            if (!writtenBodies.contains(hash)) {
+                writeBody(bodyFile, body);
+                writtenBodies.add(hash);
+            }
+            Path folderPath = directory.resolve(folder);
+            if (indexedDumps.add(folder + '\t' + testName + '\t' + hash)) {
+                Files.createDirectories(folderPath);
+                Files.write(folderPath.resolve(INDEX),
+                            Collections.singletonList(testName + '\t' + url + '\t' + folderPath.relativize(bodyFile)),
+                            UTF_8, CREATE, APPEND);
+            }
+            if (!compress) {
+                link(folderPath.resolve(testName + ".html"), bodyFile);
+            }
+        } catch (IOException e) {
+            log.warn("could not store page body for url: {} while executing test: {}", url, testName, e);
+        }
+    }
+
+    private void writeBody(Path bodyFile, String body) throws IOException {
+        if (Files.exists(bodyFile)) {
+            return;
+        }
+        Files.createDirectories(bodyFile.getParent());
+        Path partial = bodyFile.resolveSibling(bodyFile.getFileName() + ".partial");
+        try (OutputStream out = compress ? new GZIPOutputStream(Files.newOutputStream(partial)) : Files.newOutputStream(partial)) {
+            out.write(body.getBytes(UTF_8));
+        }
+        Files.move(partial, bodyFile, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+
+    private static void link(Path link, Path bodyFile) throws IOException {
+        if (Files.exists(link) && Files.isSameFile(link, bodyFile)) {
+            return;
+        }
+        Files.deleteIfExists(link);
+        try {
+            Files.createLink(link, bodyFile);
+        } catch (UnsupportedOperationException | IOException e) { // NOSONAR
+            Files.copy(bodyFile, link, REPLACE_EXISTING);
+        }
+    }
+}
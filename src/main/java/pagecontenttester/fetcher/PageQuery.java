@@ -0,0 +1,77 @@
+package pagecontenttester.fetcher;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+/**
+ * Collects css queries on a page that are answered together by a single pass over the DOM.
+ * <pre>
+ * PageQueryResult result = page.query().count("h1").present(".price").texts("li.item").run();
+ * assertThat(result.getCount("h1"), is(1));
+ * </pre>
+ */
+public class PageQuery {
+
+    private final Function<Set<String>, Map<String, Elements>> selector;
+    private final Set<String> counts = new LinkedHashSet<>();
+    private final Set<String> presences = new LinkedHashSet<>();
+    private final Set<String> texts = new LinkedHashSet<>();
+
+    PageQuery(Function<Set<String>, Map<String, Elements>> selector) {
+        this.selector = selector;
+    }
+
+    /**
+     * @param cssSelector to count the matching DOM-elements of
+     */
+    public PageQuery count(String cssSelector) {
+        counts.add(cssSelector);
+        return this;
+    }
+
+    /**
+     * @param cssSelector to check the presence of a matching DOM-element for
+     */
+    public PageQuery present(String cssSelector) {
+        presences.add(cssSelector);
+        return this;
+    }
+
+    /**
+     * @param cssSelector to get the texts of all matching DOM-elements of
+     */
+    public PageQuery texts(String cssSelector) {
+        texts.add(cssSelector);
+        return this;
+    }
+
+    /**
+     * evaluates all queries in one traversal of the DOM
+     * @return results of all queries
+     */
+    public PageQueryResult run() {
+        Set<String> cssSelectors = new LinkedHashSet<>(counts);
+        cssSelectors.addAll(presences);
+        cssSelectors.addAll(texts);
+        Map<String, Elements> selections = selector.apply(cssSelectors);
+
+        Map<String, Integer> countResults = new LinkedHashMap<>();
+        counts.forEach(css -> countResults.put(css, selections.get(css).size()));
+        Map<String, Boolean> presenceResults = new LinkedHashMap<>();
+        presences.forEach(css -> presenceResults.put(css, !selections.get(css).isEmpty()));
+        Map<String, List<String>> textResults = new LinkedHashMap<>();
+        texts.forEach(css -> textResults.put(css, Collections.unmodifiableList(
+                selections.get(css).stream().map(Element::text).collect(Collectors.toList()))));
+
+        return new PageQueryResult(countResults, presenceResults, textResults);
+    }
+}
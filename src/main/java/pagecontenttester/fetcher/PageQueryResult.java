@@ -0,0 +1,49 @@
+package pagecontenttester.fetcher;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Results of a {@link PageQuery}, only the selectors that have been queried for a result type can be asked for.
+ */
+public class PageQueryResult {
+
+    private final Map<String, Integer> counts;
+    private final Map<String, Boolean> presences;
+    private final Map<String, List<String>> texts;
+
+    PageQueryResult(Map<String, Integer> counts, Map<String, Boolean> presences, Map<String, List<String>> texts) {
+        this.counts = counts;
+        this.presences = presences;
+        this.texts = texts;
+    }
+
+    /**
+     * @return number of DOM-elements matching the selector given to {@link PageQuery#count(String)}
+     */
+    public int getCount(String cssSelector) {
+        return resultOf(counts, cssSelector, "count");
+    }
+
+    /**
+     * @return true if a DOM-element matches the selector given to {@link PageQuery#present(String)}
+     */
+    public boolean isPresent(String cssSelector) {
+        return resultOf(presences, cssSelector, "present");
+    }
+
+    /**
+     * @return texts of the DOM-elements matching the selector given to {@link PageQuery#texts(String)}
+     */
+    public List<String> getTexts(String cssSelector) {
+        return resultOf(texts, cssSelector, "texts");
+    }
+
+    private static <T> T resultOf(Map<String, T> results, String cssSelector, String queryType) {
+        T result = results.get(cssSelector);
+        if (result == null) {
+            throw new IllegalArgumentException("selector '" + cssSelector + "' has not been queried via " + queryType + "(...)");
+        }
+        return result;
+    }
+}
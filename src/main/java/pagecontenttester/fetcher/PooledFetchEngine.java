@@ -0,0 +1,208 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.NoopHostnameVerifier;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.client.LaxRedirectStrategy;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.jsoup.Connection;
+import org.jsoup.UnsupportedMimeTypeException;
+
+/**
+ * Keeps connections alive and reuses them for subsequent requests to the same host,
+ * so only the first request to a host pays for TCP and TLS handshakes.
+ * TLS sessions are resumed as all connections are created from the shared {@link TlsContext}.
+ * For head only requests the body of a html page is read up to the end of its head,
+ * the connection is closed then instead of reading the rest of the page to reuse it.
+ */
+class PooledFetchEngine implements FetchEngine {
+
+    private static final int VALIDATE_AFTER_INACTIVITY_IN_MILLIS = 2000;
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+
+    /**
+     * @param keepAliveInSeconds max time an idle connection is kept for reuse, less if the server announces less
+     */
+    PooledFetchEngine(int maxTotal, int maxPerRoute, int keepAliveInSeconds) {
+        connectionManager = new PoolingHttpClientConnectionManager(socketFactories());
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_IN_MILLIS);
+
+        client = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setRedirectStrategy(new LaxRedirectStrategy())
+                // cookies are set explicitly per fetch, no cookie state must leak between tests
+                .disableCookieManagement()
+                .disableConnectionState()
+                .setKeepAliveStrategy(keepAliveOf(TimeUnit.SECONDS.toMillis(keepAliveInSeconds)))
+                // closes connections idle for longer than the keep-alive time in the background
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(connectionManager::shutdown, "fetch-engine-shutdown"));
+    }
+
+    private static ConnectionKeepAliveStrategy keepAliveOf(long keepAliveInMillis) {
+        return (response, context) -> {
+            long announcedByServer = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return announcedByServer > 0 ? Math.min(announcedByServer, keepAliveInMillis) : keepAliveInMillis;
+        };
+    }
+
+    @Override
+    public Connection.Response execute(Request request) throws IOException {
+        return execute(request, new Cancellation());
+    }
+
+    /**
+     * a cancelled request is aborted, its connection is closed and the waiting caller fails
+     */
+    @Override
+    public Connection.Response execute(Request request, Cancellation cancellation) throws IOException {
+        RequestBuilder requestBuilder = RequestBuilder.create(request.getMethod().name())
+                .setUri(request.getUrl())
+                .setConfig(requestConfig(request));
+        if (request.getUserAgent() != null) {
+            requestBuilder.setHeader("User-Agent", request.getUserAgent());
+        }
+        if (request.getReferrer() != null) {
+            requestBuilder.setHeader("Referer", request.getReferrer());
+        }
+        request.getData().forEach(requestBuilder::addParameter);
+        request.getHeaders().forEach(requestBuilder::setHeader);
+        if (!request.getCookies().isEmpty()) {
+            StringJoiner cookieHeader = new StringJoiner("; ");
+            request.getCookies().forEach((name, value) -> cookieHeader.add(name + "=" + value));
+            requestBuilder.setHeader("Cookie", cookieHeader.toString());
+        }
+
+        HttpUriRequest httpRequest = requestBuilder.build();
+        cancellation.onCancel(httpRequest::abort);
+        HttpClientContext context = HttpClientContext.create();
+        try (CloseableHttpResponse response = client.execute(httpRequest, context)) {
+            return toResponse(request, response, finalUrl(request, context));
+        } catch (ConnectTimeoutException e) {
+            SocketTimeoutException timeout = new SocketTimeoutException("connect timed out: " + request.getUrl());
+            timeout.initCause(e);
+            throw timeout;
+        }
+    }
+
+    private static RequestConfig requestConfig(Request request) {
+        RequestConfig.Builder config = RequestConfig.custom()
+                .setConnectTimeout(request.getTimeout())
+                .setSocketTimeout(request.getTimeout())
+                .setConnectionRequestTimeout(request.getTimeout())
+                .setRedirectsEnabled(request.isFollowRedirects());
+        if (request.getProxy() != null && request.getProxy().address() instanceof InetSocketAddress) {
+            InetSocketAddress address = (InetSocketAddress) request.getProxy().address();
+            config.setProxy(new HttpHost(address.getHostString(), address.getPort()));
+        }
+        return config.build();
+    }
+
+    private static URL finalUrl(Request request, HttpClientContext context) throws IOException {
+        List<URI> redirects = context.getRedirectLocations();
+        if (redirects == null || redirects.isEmpty()) {
+            return new URL(request.getUrl());
+        }
+        return redirects.get(redirects.size() - 1).toURL();
+    }
+
+    private static Connection.Response toResponse(Request request, CloseableHttpResponse response, URL url) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        Map<String, String> cookies = new LinkedHashMap<>();
+        for (Header header : response.getAllHeaders()) {
+            headers.merge(header.getName(), header.getValue(), (first, second) -> first + ", " + second);
+            if ("Set-Cookie".equalsIgnoreCase(header.getName())) {
+                addCookie(cookies, header.getValue());
+            }
+        }
+
+        HttpEntity entity = response.getEntity();
+        String contentType = entity != null && entity.getContentType() != null ? entity.getContentType().getValue() : null;
+        if (!request.isIgnoreContentType() && contentType != null && !isParseable(contentType)) {
+            EntityUtils.consume(entity);
+            throw new UnsupportedMimeTypeException("Unhandled content type. Must be text/*, application/xml, or application/xhtml+xml",
+                                                   contentType, url.toExternalForm());
+        }
+        byte[] body;
+        if (entity == null) {
+            body = new byte[0];
+        } else if (request.isHeadOnly() && HeadSection.isHtml(contentType)) {
+            // the stream is not closed, that would read it to the end, closing the response aborts the connection
+            body = HeadSection.read(entity.getContent());
+        } else {
+            body = EntityUtils.toByteArray(entity);
+        }
+
+        return new BufferedResponse(url,
+                                    request.getMethod(),
+                                    response.getStatusLine().getStatusCode(),
+                                    response.getStatusLine().getReasonPhrase(),
+                                    contentType,
+                                    null,
+                                    headers,
+                                    cookies,
+                                    body);
+    }
+
+    private static boolean isParseable(String contentType) {
+        return contentType.startsWith("text/") || contentType.matches("(?i)application/(\\w+\\+)?xml.*");
+    }
+
+    private static void addCookie(Map<String, String> cookies, String setCookie) {
+        String nameAndValue = setCookie.split(";", 2)[0];
+        int separator = nameAndValue.indexOf('=');
+        if (separator > 0) {
+            cookies.put(nameAndValue.substring(0, separator).trim(), nameAndValue.substring(separator + 1).trim());
+        }
+    }
+
+    private static Registry<ConnectionSocketFactory> socketFactories() {
+        return RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", new SSLConnectionSocketFactory(TlsContext.get(), NoopHostnameVerifier.INSTANCE))
+                .build();
+    }
+
+    int getLeasedConnections() {
+        return connectionManager.getTotalStats().getLeased();
+    }
+
+    int getAvailableConnections() {
+        return connectionManager.getTotalStats().getAvailable();
+    }
+}
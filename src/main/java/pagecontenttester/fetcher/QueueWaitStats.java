@@ -0,0 +1,18 @@
+package pagecontenttester.fetcher;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the time requests had to wait for their host's concurrency and rate limits.
+ */
+@Value
+public class QueueWaitStats {
+
+    private long requestCount;
+    private long totalWaitTimeInNanos;
+    private long maxWaitTimeInNanos;
+
+    public double averageWaitTime() {
+        return requestCount == 0 ? 0.0 : (double) totalWaitTimeInNanos / requestCount;
+    }
+}
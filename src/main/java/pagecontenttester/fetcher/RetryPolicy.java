@@ -0,0 +1,191 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+
+import org.jsoup.Connection;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Decides whether a failed request is retried and how long to wait before doing so.
+ *
+ * Timeouts, refused or reset connections, unknown hosts and the configured status codes are retried
+ * with exponential backoff and full jitter. A Retry-After header sent by the server is honoured.
+ * Reset connections and status codes are retried for GET and HEAD requests only,
+ * as the server may already have processed a request of any other method.
+ * All fetchers share one retry budget, so an unreachable host cannot multiply the runtime of the whole suite.
+ */
+class RetryPolicy {
+
+    static final long NO_RETRY = -1;
+
+    private static final Set<Class<? extends IOException>> RETRYABLE_EXCEPTIONS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            SocketTimeoutException.class,
+            ConnectException.class,
+            SocketException.class,
+            UnknownHostException.class)));
+    // retried for every method, the request has not been sent or was retried on timeout ever since
+    private static final Set<Class<? extends IOException>> RETRYABLE_EXCEPTIONS_OF_ANY_METHOD = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            SocketTimeoutException.class,
+            ConnectException.class,
+            UnknownHostException.class)));
+    private static final Set<Connection.Method> REPLAYABLE_METHODS = Collections.unmodifiableSet(EnumSet.of(
+            Connection.Method.GET,
+            Connection.Method.HEAD));
+
+    private final long initialBackoffInMillis;
+    private final long maxBackoffInMillis;
+    private final double multiplier;
+    private final Set<Integer> retryableStatusCodes;
+    private final RetryBudget budget;
+    private final DoubleSupplier random;
+
+    RetryPolicy(long initialBackoffInMillis, long maxBackoffInMillis, double multiplier,
+                Set<Integer> retryableStatusCodes, RetryBudget budget, DoubleSupplier random) {
+        this.initialBackoffInMillis = initialBackoffInMillis;
+        this.maxBackoffInMillis = maxBackoffInMillis;
+        this.multiplier = multiplier;
+        this.retryableStatusCodes = retryableStatusCodes;
+        this.budget = budget;
+        this.random = random;
+    }
+
+    static RetryPolicy fromConfig(Config config) {
+        Set<Integer> statusCodes = Arrays.stream(config.getRetryStatusCodes().split(","))
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .map(Integer::valueOf)
+                .collect(Collectors.toSet());
+        return new RetryPolicy(config.getRetryInitialBackoffInMillis(),
+                               config.getRetryMaxBackoffInMillis(),
+                               config.getRetryBackoffMultiplier(),
+                               statusCodes,
+                               new RetryBudget(config.getRetryBudgetRatio(), config.getRetryBudgetMin()),
+                               () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    boolean isRetryable(IOException e, Connection.Method method) {
+        Set<Class<? extends IOException>> retryable = REPLAYABLE_METHODS.contains(method)
+                ? RETRYABLE_EXCEPTIONS
+                : RETRYABLE_EXCEPTIONS_OF_ANY_METHOD;
+        return retryable.stream().anyMatch(type -> type.isInstance(e));
+    }
+
+    boolean isRetryable(Connection.Response response, Connection.Method method) {
+        return REPLAYABLE_METHODS.contains(method) && retryableStatusCodes.contains(response.statusCode());
+    }
+
+    /**
+     * has to be called once for every fetch, retries are allowed relative to the number of fetches
+     */
+    void recordFetch() {
+        budget.recordFetch();
+    }
+
+    /**
+     * @param retryCount number of retries already done for this fetch
+     * @param maxRetries max number of retries for this fetch
+     * @param retryAfter value of the Retry-After header or null
+     * @return millis to wait before the next attempt or {@link #NO_RETRY}
+     */
+    long delayBeforeRetry(int retryCount, int maxRetries, String retryAfter) {
+        if (retryCount >= maxRetries) {
+            return NO_RETRY;
+        }
+        long delay = backoff(retryCount);
+        long requestedDelay = retryAfterInMillis(retryAfter);
+        if (requestedDelay > maxBackoffInMillis) {
+            // the server will not be back in time, waiting only slows down the suite
+            return NO_RETRY;
+        }
+        if (!budget.tryAcquire()) {
+            return NO_RETRY;
+        }
+        return Math.max(delay, requestedDelay);
+    }
+
+    RetryBudget getBudget() {
+        return budget;
+    }
+
+    private long backoff(int retryCount) {
+        double exponential = initialBackoffInMillis * Math.pow(multiplier, retryCount);
+        return (long) (random.getAsDouble() * Math.min(maxBackoffInMillis, exponential));
+    }
+
+    static long retryAfterInMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return 0;
+        }
+        String value = retryAfter.trim();
+        if (value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value) * 1000;
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (DateTimeParseException e) { // NOSONAR
+            return 0;
+        }
+    }
+
+    /**
+     * Allows retries for a share of all fetches, plus a fixed number of retries that is always available.
+     */
+    static class RetryBudget {
+
+        private final double ratio;
+        private final long minRetries;
+        private final LongAdder fetches = new LongAdder();
+        private final AtomicLong retries = new AtomicLong();
+        private final LongAdder rejected = new LongAdder();
+
+        RetryBudget(double ratio, long minRetries) {
+            this.ratio = ratio;
+            this.minRetries = minRetries;
+        }
+
+        void recordFetch() {
+            fetches.increment();
+        }
+
+        boolean tryAcquire() {
+            long limit = minRetries + (long) (ratio * fetches.sum());
+            long current;
+            do {
+                current = retries.get();
+                if (current >= limit) {
+                    rejected.increment();
+                    return false;
+                }
+            } while (!retries.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        long getRetryCount() {
+            return retries.get();
+        }
+
+        long getRejectedCount() {
+            return rejected.sum();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package pagecontenttester.fetcher;
+
+import java.util.concurrent.ExecutionException;
+
+import org.jsoup.helper.Validate;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.jsoup.select.Selector;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import pagecontenttester.configurations.Config;
+
+/**
+ * Compiled css selectors shared by all pages.
+ * The same selectors are queried on many pages, so every selector is parsed only once.
+ */
+final class SelectorCache {
+
+    private static final Cache<String, Evaluator> EVALUATORS = CacheBuilder.newBuilder()
+            .maximumSize(Config.get().getSelectorCacheMaxEntries())
+            .build();
+
+    private SelectorCache() {
+    }
+
+    /**
+     * same as {@link Element#select(String)} but takes the compiled selector from the cache
+     */
+    static Elements select(String cssSelector, Element root) {
+        return Selector.select(compile(cssSelector), root);
+    }
+
+    /**
+     * @throws Selector.SelectorParseException if the selector is invalid, invalid selectors are not cached
+     */
+    static Evaluator compile(String cssSelector) {
+        Validate.notEmpty(cssSelector);
+        try {
+            return EVALUATORS.get(cssSelector.trim(), () -> QueryParser.parse(cssSelector.trim()));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static long size() {
+        return EVALUATORS.size();
+    }
+}
@@ -0,0 +1,67 @@
+package pagecontenttester.fetcher;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces concurrent calls for the same key.
+ * The first caller performs the load, all callers arriving while it is running wait for and share its result.
+ */
+class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    V execute(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            waiting.incrementAndGet();
+            try {
+                return await(running);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+        try {
+            V value = loader.call();
+            call.complete(value);
+            return value;
+        } catch (Exception e) {
+            call.completeExceptionally(e);
+            throw e;
+        } catch (Error e) { // NOSONAR
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * @return number of callers waiting for the result of a load performed by another caller
+     */
+    int waitingCount() {
+        return waiting.get();
+    }
+
+    private static <V> V await(CompletableFuture<V> running) throws Exception {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package pagecontenttester.fetcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Tag;
+import org.jsoup.select.Evaluator;
+
+/**
+ * Counts the elements matching a css selector by scanning the start tags of a html page,
+ * without building a DOM.
+ *
+ * Only selectors that can be decided by looking at a single element are supported: tag, #id, .class
+ * and [attribute] selectors, combined or grouped by comma. Combinators and pseudo selectors depend on
+ * the tree, which the html tree builder derives from the tags by rules (implicit end tags, misnested
+ * formatting elements, foster parenting) that a scanner can not follow.
+ * Wherever the tree builder may add, drop, merge or clone a matching element the scan is given up,
+ * the caller falls back to the DOM then.
+ */
+final class StreamingSelector {
+
+    static final int NOT_STREAMABLE = -1;
+
+    private static final Pattern COMPOUND_SELECTOR = Pattern.compile(
+            "(?:[a-zA-Z][\\w-]*)?(?:[#.][\\w-]+|\\[[\\w-]+(?:[~^$*!]?=(?:\"[^\"]*\"|'[^']*'|[^\\]\"',]*))?\\])*");
+
+    // elements the tree builder creates implicitly, ignores or merges depending on where their tags occur
+    private static final Set<String> RESTRUCTURED = setOf(
+            "html", "head", "body", "frameset", "frame", "form", "p", "br", "image", "isindex",
+            "caption", "colgroup", "col", "tbody", "thead", "tfoot", "tr", "td", "th");
+
+    // cloned by the tree builder when misnested, may occur more often in the DOM than in the source
+    private static final Set<String> FORMATTING = setOf(
+            "a", "b", "big", "code", "em", "font", "i", "nobr", "s", "small", "strike", "strong", "tt", "u");
+
+    // their content is text, not markup
+    private static final Set<String> RAW_TEXT = setOf(
+            "script", "style", "xmp", "iframe", "noembed", "noframes", "title", "textarea");
+
+    // the only elements the tree builder keeps inside of a select
+    private static final Set<String> ALLOWED_IN_SELECT = setOf("option", "optgroup", "script");
+    private static final Set<String> CLOSING_SELECT = setOf("select", "input", "keygen", "textarea");
+
+    private StreamingSelector() {
+    }
+
+    /**
+     * @return true if the selector consists of compound selectors only, that do not require a tree to be matched
+     */
+    static boolean isStreamable(String cssSelector) {
+        for (String selector : cssSelector.split(",")) {
+            String compound = selector.trim();
+            if (compound.isEmpty() || !COMPOUND_SELECTOR.matcher(compound).matches()) {
+                return false;
+            }
+            int tagEnd = 0;
+            while (tagEnd < compound.length() && isTagNameChar(compound.charAt(tagEnd))) {
+                tagEnd++;
+            }
+            if (RESTRUCTURED.contains(compound.substring(0, tagEnd).toLowerCase(Locale.ENGLISH))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param limit scanning stops as soon as this number of matches has been found
+     * @return number of matching elements (at most limit) or {@link #NOT_STREAMABLE} if the DOM has to be asked
+     */
+    static int count(String html, String cssSelector, int limit) {
+        if (!isStreamable(cssSelector)) {
+            return NOT_STREAMABLE;
+        }
+        Evaluator evaluator = SelectorCache.compile(cssSelector);
+        TagScanner scanner = new TagScanner(html);
+        int count = 0;
+        boolean inSelect = false;
+        while (scanner.next()) {
+            String name = scanner.getTagName();
+            if (scanner.isEndTag()) {
+                inSelect &= !"select".equals(name);
+                continue;
+            }
+            if ("image".equals(name) || "isindex".equals(name) || "frameset".equals(name) || "plaintext".equals(name)) {
+                // renamed, expanded into several elements or turning everything after into text
+                return NOT_STREAMABLE;
+            }
+            Element element = new Element(Tag.valueOf(name), "", scanner.getAttributes());
+            if (evaluator.matches(element, element)) {
+                if (RESTRUCTURED.contains(name)
+                        || (inSelect && !ALLOWED_IN_SELECT.contains(name))
+                        || (limit > 1 && FORMATTING.contains(name))) {
+                    return NOT_STREAMABLE;
+                }
+                if (++count >= limit) {
+                    return count;
+                }
+            }
+            if ("select".equals(name)) {
+                inSelect = true;
+            } else if (inSelect && CLOSING_SELECT.contains(name)) {
+                inSelect = false;
+            }
+            if (RAW_TEXT.contains(name)) {
+                scanner.skipRawText(name);
+            }
+        }
+        return count;
+    }
+
+    private static boolean isTagNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '_';
+    }
+
+    private static Set<String> setOf(String... values) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(values)));
+    }
+}
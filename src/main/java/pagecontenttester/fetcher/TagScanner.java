@@ -0,0 +1,228 @@
+package pagecontenttester.fetcher;
+
+import java.util.Locale;
+
+import org.jsoup.nodes.Attributes;
+import org.jsoup.parser.Parser;
+
+/**
+ * Finds start and end tags of a html page the way the html tokenizer does,
+ * skipping text, comments, doctype and processing instructions.
+ */
+final class TagScanner {
+
+    private final String html;
+    private int position;
+    private int tagStart;
+    private String tagName;
+    private boolean endTag;
+    private boolean complete;
+    private Attributes attributes;
+
+    TagScanner(String html) {
+        this.html = html;
+    }
+
+    /**
+     * @return false if there is no further tag
+     */
+    boolean next() {
+        while (true) {
+            int open = html.indexOf('<', position);
+            if (open < 0 || open + 1 >= html.length()) {
+                position = html.length();
+                return false;
+            }
+            char next = html.charAt(open + 1);
+            if (isAsciiLetter(next)) {
+                tagStart = open;
+                position = open + 1;
+                readStartTag();
+                return true;
+            }
+            if (next == '/' && open + 2 < html.length() && isAsciiLetter(html.charAt(open + 2))) {
+                tagStart = open;
+                position = open + 2;
+                readEndTag();
+                return true;
+            }
+            if (next == '!' && html.startsWith("<!--", open)) {
+                position = skipComment(open + 2);
+            } else if (next == '!' || next == '?' || next == '/') {
+                position = skipTo('>', open + 2);
+            } else {
+                position = open + 1;
+            }
+        }
+    }
+
+    /**
+     * moves behind the end tag of an element whose content is text, e.g. a script
+     */
+    void skipRawText(String name) {
+        int searchFrom = position;
+        while (true) {
+            int close = html.indexOf("</", searchFrom);
+            if (close < 0) {
+                position = html.length();
+                return;
+            }
+            int nameEnd = close + 2 + name.length();
+            if (html.regionMatches(true, close + 2, name, 0, name.length())
+                    && (nameEnd >= html.length() || isTagNameEnd(html.charAt(nameEnd)))) {
+                position = skipTo('>', nameEnd);
+                return;
+            }
+            searchFrom = close + 2;
+        }
+    }
+
+    /**
+     * @return lower case name of the current tag
+     */
+    String getTagName() {
+        return tagName;
+    }
+
+    boolean isEndTag() {
+        return endTag;
+    }
+
+    /**
+     * @return false if the html ended before the current tag was closed
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return attributes of the current start tag, null for end tags
+     */
+    Attributes getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return index of the '<' the current tag starts with
+     */
+    int getTagStart() {
+        return tagStart;
+    }
+
+    /**
+     * @return index behind the current tag, or behind the raw text skipped last
+     */
+    int getPosition() {
+        return position;
+    }
+
+    private void readStartTag() {
+        endTag = false;
+        tagName = readName();
+        attributes = new Attributes();
+        while (position < html.length()) {
+            char c = html.charAt(position);
+            if (c == '>') {
+                position++;
+                complete = true;
+                return;
+            }
+            if (Character.isWhitespace(c) || c == '/') {
+                position++;
+                continue;
+            }
+            readAttribute();
+        }
+        complete = false;
+    }
+
+    private void readEndTag() {
+        endTag = true;
+        tagName = readName();
+        attributes = null;
+        int end = html.indexOf('>', position);
+        complete = end >= 0;
+        position = complete ? end + 1 : html.length();
+    }
+
+    private void readAttribute() {
+        int nameStart = position;
+        // the first character belongs to the name, even if it is a '='
+        position++;
+        while (position < html.length() && !isAttributeNameEnd(html.charAt(position))) {
+            position++;
+        }
+        String name = html.substring(nameStart, position).toLowerCase(Locale.ENGLISH);
+        skipWhitespace();
+        if (position >= html.length() || html.charAt(position) != '=') {
+            attributes.put(name, "");
+            return;
+        }
+        position++;
+        skipWhitespace();
+        if (position >= html.length()) {
+            attributes.put(name, "");
+            return;
+        }
+        String value;
+        char quote = html.charAt(position);
+        if (quote == '"' || quote == '\'') {
+            int end = html.indexOf(quote, position + 1);
+            end = end < 0 ? html.length() : end;
+            value = html.substring(position + 1, end);
+            position = Math.min(end + 1, html.length());
+        } else {
+            int start = position;
+            while (position < html.length() && !Character.isWhitespace(html.charAt(position)) && html.charAt(position) != '>') {
+                position++;
+            }
+            value = html.substring(start, position);
+        }
+        attributes.put(name, value.indexOf('&') < 0 ? value : Parser.unescapeEntities(value, true));
+    }
+
+    private String readName() {
+        int start = position;
+        while (position < html.length() && !isTagNameEnd(html.charAt(position))) {
+            position++;
+        }
+        return html.substring(start, position).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @param from position of the comment's opening dashes, "<!-->" and "<!--->" are complete comments
+     */
+    private int skipComment(int from) {
+        if (html.startsWith("-->", from)) {
+            return from + 3;
+        }
+        if (html.startsWith("--->", from)) {
+            return from + 4;
+        }
+        int end = html.indexOf("-->", from + 2);
+        return end < 0 ? html.length() : end + 3;
+    }
+
+    private int skipTo(char c, int from) {
+        int end = html.indexOf(c, from);
+        return end < 0 ? html.length() : end + 1;
+    }
+
+    private void skipWhitespace() {
+        while (position < html.length() && Character.isWhitespace(html.charAt(position))) {
+            position++;
+        }
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return Character.isWhitespace(c) || c == '/' || c == '>';
+    }
+
+    private static boolean isAttributeNameEnd(char c) {
+        return Character.isWhitespace(c) || c == '/' || c == '>' || c == '=';
+    }
+}
@@ -0,0 +1,38 @@
+package pagecontenttester.fetcher;
+
+import java.security.GeneralSecurityException;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.ssl.SSLContexts;
+
+/**
+ * The SSLContext of https fetches, built once per JVM. Certificates are not validated, same as for the jsoup engine,
+ * as test systems often use self signed certificates.
+ * All connections are created from the same context and share its session cache, so a handshake with a host
+ * that has been connected to before resumes the session instead of negotiating a new one.
+ */
+final class TlsContext {
+
+    // sessions of more hosts than a test suite usually fetches from
+    private static final int SESSION_CACHE_SIZE = 1000;
+
+    private static final SSLContext CONTEXT = create();
+
+    private TlsContext() {
+    }
+
+    static SSLContext get() {
+        return CONTEXT;
+    }
+
+    private static SSLContext create() {
+        try {
+            SSLContext context = SSLContexts.custom().loadTrustMaterial(null, (chain, authType) -> true).build();
+            context.getClientSessionContext().setSessionCacheSize(SESSION_CACHE_SIZE);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("could not create ssl context", e);
+        }
+    }
+}
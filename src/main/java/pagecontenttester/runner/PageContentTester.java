@@ -1,17 +1,22 @@
 package pagecontenttester.runner;
 
+import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.runner.RunWith;
 
 import com.googlecode.junittoolbox.ParallelRunner;
 
 import pagecontenttester.annotations.FetcherRule;
+import pagecontenttester.annotations.PrefetchRule;
 import pagecontenttester.configurations.Config;
 
 @RunWith(ParallelRunner.class)
 public class PageContentTester {
 
-    protected Config config = new Config();
+    @ClassRule
+    public static final PrefetchRule prefetch = new PrefetchRule();
+
+    protected Config config = Config.get();
 
     @Rule
     public FetcherRule page = new FetcherRule();
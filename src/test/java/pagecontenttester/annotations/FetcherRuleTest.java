@@ -0,0 +1,146 @@
+package pagecontenttester.annotations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+import pagecontenttester.configurations.Config;
+import pagecontenttester.fetcher.StubServer;
+
+public class FetcherRuleTest {
+
+    private static final int SLOW_RESPONSE_IN_MILLIS = 300;
+    private static final long BLOCKING_RESPONSE_IN_MILLIS = 5000;
+
+    private static final CountDownLatch releaseBlockingResponse = new CountDownLatch(1);
+
+    private static final AtomicInteger activeRequests = new AtomicInteger();
+    private static final AtomicInteger maxActiveRequests = new AtomicInteger();
+    private static final AtomicInteger cachedRequests = new AtomicInteger();
+    private static StubServer server;
+    private static Config config;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new StubServer(0).handle("/", exchange -> {
+            if (exchange.getRequestURI().getPath().startsWith("/blocking")) {
+                try {
+                    releaseBlockingResponse.await(BLOCKING_RESPONSE_IN_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (exchange.getRequestURI().getPath().startsWith("/cached/")) {
+                cachedRequests.incrementAndGet();
+            }
+            maxActiveRequests.accumulateAndGet(activeRequests.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(SLOW_RESPONSE_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            activeRequests.decrementAndGet();
+            server.send(exchange, 200, "<html><head><title>" + exchange.getRequestURI().getPath() + "</title></head></html>");
+        });
+        config = Config.withOverrides(Collections.singletonMap("port", String.valueOf(server.getPort())));
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_fetch_annotated_pages_concurrently_and_keep_their_order() throws Throwable {
+        FetcherRule page = run("parallel");
+
+        assertThat(maxActiveRequests.get(), greaterThan(1));
+        assertThat(page.get(0).getUrl(), endsWith("/parallel/1"));
+        assertThat(page.get(1).getUrl(), endsWith("/parallel/2"));
+        assertThat(page.get(2).getUrl(), endsWith("/parallel/3"));
+        assertThat(page.get("parallel/2").getDocument().title(), is("/parallel/2"));
+    }
+
+    @Test
+    public void should_fail_with_first_failing_fetch_without_waiting_for_the_others() throws Throwable {
+        long start = System.currentTimeMillis();
+        try {
+            run("failing");
+            fail("failing fetch not reported");
+        } catch (IOException e) {
+            assertThat(System.currentTimeMillis() - start, lessThan(BLOCKING_RESPONSE_IN_MILLIS));
+        } finally {
+            releaseBlockingResponse.countDown();
+        }
+    }
+
+    @Test
+    public void should_take_all_annotated_pages_from_cache_until_test_was_called() throws Throwable {
+        run("fetching");
+        assertThat(cachedRequests.get(), is(3));
+
+        run("takingFromCache");
+        assertThat(cachedRequests.get(), is(3));
+
+        run("takingFromCache");
+        assertThat(cachedRequests.get(), is(6));
+    }
+
+    private static FetcherRule run(String fixture) throws Throwable {
+        FetcherRule rule = new FetcherRule(config);
+        Statement test = new Statement() {
+            @Override
+            public void evaluate() {
+                // fixture
+            }
+        };
+        rule.apply(test, new FrameworkMethod(Fixtures.class.getMethod(fixture)), new Fixtures()).evaluate();
+        return rule;
+    }
+
+    public static class Fixtures {
+
+        @Fetch(url = "localhost/parallel/1")
+        @Fetch(url = "localhost/parallel/2")
+        @Fetch(url = "localhost/parallel/3")
+        public void parallel() {
+            // fixture
+        }
+
+        @Fetch(url = "localhost/blocking")
+        // nothing listens on port 1, so the connection is refused at once
+        @Fetch(url = "localhost/failing", port = "1")
+        public void failing() {
+            // fixture
+        }
+
+        @Fetch(url = "localhost/cached/1")
+        @Fetch(url = "localhost/cached/2")
+        @Fetch(url = "localhost/cached/3")
+        public void fetching() {
+            // fixture
+        }
+
+        @Fetch(url = "localhost/cached/1")
+        @Fetch(url = "localhost/cached/2")
+        @Fetch(url = "localhost/cached/3")
+        public void takingFromCache() {
+            // fixture
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package pagecontenttester.annotations;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+import pagecontenttester.configurations.Config;
+import pagecontenttester.fetcher.StubServer;
+
+public class PrefetchRuleTest {
+
+    private static StubServer server;
+    private static Config config;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new StubServer(0).respond("/", 200, "<html><head><title>prefetched</title></head></html>");
+        config = Config.withOverrides(Collections.singletonMap("port", String.valueOf(server.getPort())));
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_collect_each_declared_request_once() {
+        assertThat(new PrefetchRule(config).declaredFetches(DeclaringFetches.class).size(), is(3));
+    }
+
+    @Test
+    public void should_fetch_each_declared_page_once() throws InterruptedException {
+        PrefetchRule rule = new PrefetchRule(config);
+        rule.prefetch(DeclaringFetches.class);
+        rule.prefetch(DeclaringFetches.class);
+
+        assertThat(server.getRequestCount(), is(3));
+    }
+
+    @Test
+    public void should_take_all_prefetched_pages_of_a_test_from_cache() throws Throwable {
+        try (StubServer prefetchedServer = new StubServer(0).respond("/", 200, "<html><head><title>prefetched</title></head></html>")) {
+            Config prefetchedConfig = Config.withOverrides(Collections.singletonMap("port", String.valueOf(prefetchedServer.getPort())));
+            new PrefetchRule(prefetchedConfig).prefetch(DeclaringFetches.class);
+            Statement test = new Statement() {
+                @Override
+                public void evaluate() {
+                    // fixture
+                }
+            };
+
+            new FetcherRule(prefetchedConfig).apply(test, new FrameworkMethod(DeclaringFetches.class.getMethod("second")), null).evaluate();
+
+            assertThat(prefetchedServer.getRequestCount(), is(3));
+        }
+    }
+
+    @Fetch(url = "localhost/prefetch/class")
+    public abstract static class DeclaringFetches {
+
+        @Test
+        @Fetch(url = "localhost/prefetch/a")
+        public void first() {
+            // fixture
+        }
+
+        @Test
+        @Fetch(url = "localhost/prefetch/a")
+        @Fetch(url = "localhost/prefetch/b")
+        public void second() {
+            // fixture
+        }
+
+        @Fetch(url = "localhost/prefetch/not-a-test")
+        public void helper() {
+            // fixture
+        }
+    }
+}
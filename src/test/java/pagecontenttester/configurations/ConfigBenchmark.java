@@ -0,0 +1,71 @@
+package pagecontenttester.configurations;
+
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Config overhead of a single test: creating the config of the test rule and reading the values of one fetch.
+ * The properties file used to be read for every config, and every value parsed again on each access.
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark=ConfigBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBenchmark {
+
+    @Benchmark
+    public void loadPropertiesPerTest(Blackhole blackhole) {
+        TypedProperties configs = new TypedProperties("/pagecontent.properties");
+        blackhole.consume(configs.getIntValue("timeout"));
+        blackhole.consume(configs.getIntValue("timeout.max.retry.count"));
+        blackhole.consume(configs.getStringValue("desktop.userAgent"));
+        blackhole.consume(configs.getStringValue("referrer"));
+        blackhole.consume(configs.getBooleanValue("follow.redirects"));
+        blackhole.consume(configs.getBooleanValue("ignore.content-type"));
+        blackhole.consume(configs.getBooleanValue("cache.duplicates"));
+        blackhole.consume(configs.getBooleanValue("cache.log.duplicates"));
+        blackhole.consume(configs.getStringValue("proxy.host").isEmpty() ? null : configs.getStringValue("proxy.port"));
+        blackhole.consume(configs.getStringValue("urlPrefix"));
+        blackhole.consume(configs.getStringValue("port"));
+    }
+
+    @SuppressWarnings("deprecation")
+    @Benchmark
+    public void parseSnapshotPerTest(Blackhole blackhole) {
+        readFetchValues(new Config(), blackhole);
+    }
+
+    @Benchmark
+    public void sharedSnapshot(Blackhole blackhole) {
+        readFetchValues(Config.get(), blackhole);
+    }
+
+    private static void readFetchValues(Config config, Blackhole blackhole) {
+        blackhole.consume(config.getTimeoutValue());
+        blackhole.consume(config.getTimeoutMaxRetryCount());
+        blackhole.consume(config.getUserAgent(DESKTOP));
+        blackhole.consume(config.getReferrer());
+        blackhole.consume(config.isFollowingRedirects());
+        blackhole.consume(config.isIgnoringContentType());
+        blackhole.consume(config.isCacheDuplicatesActive());
+        blackhole.consume(config.isCacheDuplicatesLogActive());
+        blackhole.consume(config.getProxy());
+        blackhole.consume(config.getUrlPrefix());
+        blackhole.consume(config.getPort());
+    }
+}
@@ -1,10 +1,16 @@
 package pagecontenttester.configurations;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
 import static pagecontenttester.fetcher.FetchedPage.DeviceType.MOBILE;
 
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.Test;
 
 public class ConfigTest {
@@ -12,7 +18,7 @@ public class ConfigTest {
     private static final String DESKTOP_USER_AGENT = "Mozilla/5.0 (X11\\; Ubuntu\\; Linux x86_64\\; rv\\:25.0)";
     private static final String MOBILE_USER_AGENT = "Mozilla/5.0 (iPhone\\; CPU iPhone OS 6_1_4 like Mac OS X) AppleWebKit/536.26 (KHTML, like Gecko) Version/6.0 Mobile/10B350 Safari/8536.25";
 
-    private Config config = new Config();
+    private Config config = Config.get();
 
     @Test
     public void should_return_desktop_user_agent() {
@@ -54,4 +60,32 @@ public class ConfigTest {
         assertThat(config.isCacheDuplicatesActive(), is(true));
     }
 
+    @Test
+    public void should_return_cache_bounds() {
+        assertThat(config.getCacheMaxEntries(), is(1000));
+        assertThat(config.getCacheEvictionPolicy(), is("lru"));
+    }
+
+    @Test
+    public void should_share_config() {
+        assertThat(Config.get(), sameInstance(config));
+        assertThat(config.getProxy(), is(nullValue()));
+    }
+
+    @Test
+    public void should_prefer_overrides() {
+        Map<String, String> overrides = new HashMap<>();
+        overrides.put("timeout", "500");
+        overrides.put("proxy.host", "proxy.example.com");
+        overrides.put("proxy.port", "3128");
+
+        Config overridden = Config.withOverrides(overrides);
+
+        assertThat(overridden.getTimeoutValue(), is(500));
+        assertThat(((InetSocketAddress) overridden.getProxy().address()).getPort(), is(3128));
+        assertThat(overridden.getProxy(), sameInstance(overridden.getProxy()));
+        assertThat(overridden.getUserAgent(DESKTOP), is(DESKTOP_USER_AGENT));
+        assertThat(config.getTimeoutValue(), is(10000));
+    }
+
 }
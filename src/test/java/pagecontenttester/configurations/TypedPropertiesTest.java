@@ -4,6 +4,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.core.Is.is;
 
+import java.util.Collections;
+
 import org.junit.Test;
 
 public class TypedPropertiesTest {
@@ -55,6 +57,15 @@ public class TypedPropertiesTest {
         pacoProperties.getIntValue("cache.duplicates");
     }
 
+    @Test
+    public void should_return_overridden_value() {
+        TypedProperties overridden = pacoProperties.withOverrides(Collections.singletonMap("referrer", "http://localhost"));
+
+        assertThat(overridden.getStringValue("referrer"), is("http://localhost"));
+        assertThat(overridden.getIntValue("timeout"), is(pacoProperties.getIntValue("timeout")));
+        assertThat(pacoProperties.getStringValue("referrer"), is("http://www.google.com"));
+    }
+
     @Test(expected = RuntimeException.class)
     public void should_throw_runtime_exception() throws Exception {
         pacoProperties.getBooleanValue("referrer");
@@ -0,0 +1,99 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.jsoup.Connection.Method;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import pagecontenttester.configurations.Config;
+
+public class AsyncFetchTest {
+
+    private static final int SLOW_RESPONSE_IN_MILLIS = 500;
+
+    private StubServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StubServer().handle("/", exchange -> {
+            try {
+                Thread.sleep(SLOW_RESPONSE_IN_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            server.send(exchange, 200, "<html><head><title>" + exchange.getRequestURI().getPath() + "</title></head></html>");
+        });
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_fetch_pages_concurrently() {
+        FetchedPage.fetchAsync(server.url("/warm-up"), DESKTOP, "AsyncFetchTest.warm-up").join();
+
+        long start = System.currentTimeMillis();
+        List<CompletableFuture<FetchedPage>> fetches = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            fetches.add(FetchedPage.fetchAsync(server.url("/concurrent-" + i), DESKTOP, "AsyncFetchTest.concurrent"));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(fetches.get(i).join().getDocument().title(), is("/concurrent-" + i));
+        }
+        assertThat(System.currentTimeMillis() - start, lessThan(3L * SLOW_RESPONSE_IN_MILLIS));
+    }
+
+    @Test
+    public void should_share_cached_page_with_blocking_calls() {
+        FetchedPage first = FetchedPage.fetchAsync(server.url("/shared"), DESKTOP, "AsyncFetchTest.shared-1").join();
+        FetchedPage second = FetchedPage.fetchAsync(server.url("/shared"), DESKTOP, "AsyncFetchTest.shared-2").join();
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void should_take_page_fetched_by_flight_completed_after_cache_miss() throws Exception {
+        FetchedPage first = FetchedPage.fetchAsync(server.url("/late"), DESKTOP, "AsyncFetchTest.late-1").join();
+        Config config = Config.get();
+        FetchRequestParameters sameRequest = FetchRequestParameters.builder()
+                .urlToFetch(server.url("/late"))
+                .method(Method.GET)
+                .requestBody(Collections.emptyMap())
+                .device(DESKTOP)
+                .referrer(config.getReferrer())
+                .timeout(config.getTimeoutValue())
+                .retriesOnTimeout(config.getTimeoutMaxRetryCount())
+                .cookie(Collections.emptyMap())
+                .urlPrefix(config.getUrlPrefix())
+                .headOnly(config.isHeadOnlyParsingActive())
+                .build();
+
+        // as a caller that missed the cache while the first fetch was still in flight
+        FetchedPage late = FetchedPage.fetchIntoCache(sameRequest, "AsyncFetchTest.late-2");
+
+        assertThat(late, is(sameInstance(first)));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test(expected = CompletionException.class)
+    public void should_complete_exceptionally_if_fetch_fails() {
+        FetchedPage.fetchAsync("http://localhost:1/unreachable", DESKTOP, "AsyncFetchTest.failing").join();
+    }
+}
@@ -0,0 +1,72 @@
+package pagecontenttester.fetcher;
+
+/**
+ * Synthetic pages shaped like the shop and article pages the benchmarks stand in for.
+ */
+final class BenchmarkPages {
+
+    private BenchmarkPages() {
+    }
+
+    /**
+     * @param products number of product tiles on the page
+     */
+    static String productListing(int products) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\">")
+                .append("<title>Product listing</title>")
+                .append("<meta name=\"description\" content=\"benchmark page\">")
+                .append("<link rel=\"canonical\" href=\"https://www.example.com/products\">")
+                .append("<script src=\"/static/app.js\"></script></head><body>")
+                .append("<header id=\"header\"><nav class=\"main-nav\"><ul>");
+        for (int i = 0; i < 12; i++) {
+            html.append("<li class=\"nav-item\"><a href=\"/category/").append(i).append("\">Category ").append(i).append("</a></li>");
+        }
+        html.append("</ul></nav></header><main id=\"content\"><h1 class=\"headline\">Products</h1><div class=\"product-list\">");
+        for (int i = 0; i < products; i++) {
+            html.append("<article class=\"product").append(i % 7 == 0 ? " sponsored" : "").append("\" data-id=\"").append(i).append("\">")
+                .append("<a class=\"product-link\" href=\"/product/").append(i).append("\">")
+                .append("<img src=\"/img/").append(i).append(".jpg\" alt=\"product ").append(i).append("\"></a>")
+                .append("<h2 class=\"product-name\">Product ").append(i).append("</h2>")
+                .append("<p class=\"description\">Some text describing product ").append(i).append(" in a few words.</p>")
+                .append("<span class=\"price\">").append(10 + i).append(".99 EUR</span>")
+                .append("<button type=\"button\" class=\"btn add-to-cart\">Add to cart</button></article>");
+        }
+        html.append("</div><div class=\"pagination\"><a class=\"next\" href=\"?page=2\">next</a></div></main>")
+            .append("<footer id=\"footer\"><p class=\"copyright\">example</p></footer></body></html>");
+        return html.toString();
+    }
+
+    /**
+     * @param items number of items in the json response of a product search api
+     */
+    static String apiResponse(int items) {
+        StringBuilder json = new StringBuilder("{\"query\": \"shoes\", \"total\": ").append(items).append(", \"items\": [");
+        for (int i = 0; i < items; i++) {
+            json.append(i == 0 ? "" : ",")
+                .append("{\"id\": ").append(i)
+                .append(", \"name\": \"Product ").append(i).append("\"")
+                .append(", \"price\": ").append(10 + i).append(".99")
+                .append(", \"available\": ").append(i % 3 != 0)
+                .append(", \"tags\": [\"sale\", \"new\"], \"seller\": {\"id\": ").append(i % 17).append(", \"rating\": 4.5}}");
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * selectors as they are typically used by tests
+     */
+    static final String[] SELECTORS = {
+            "title",
+            "h1.headline",
+            "#header .main-nav li.nav-item > a",
+            "meta[name=description]",
+            "link[rel=canonical]",
+            "article.product",
+            "article.product.sponsored",
+            "div.product-list article .price",
+            "a.product-link img[alt]",
+            "button.add-to-cart",
+            "div.pagination a.next",
+            "#footer p.copyright"
+    };
+}
@@ -0,0 +1,56 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Retained heap per cached page body, kept on heap or in the compressed body store,
+ * before and after the body has been read by a test.
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.main=pagecontenttester.fetcher.BodyStoreFootprint
+ */
+public final class BodyStoreFootprint {
+
+    private static final int PAGES = 2000;
+    private static final int PRODUCTS_PER_PAGE = 200;
+    private static final int HOT_ENTRIES = 32;
+
+    private BodyStoreFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String page = BenchmarkPages.productListing(PRODUCTS_PER_PAGE);
+        CompressedBodyStore store = new CompressedBodyStore(Files.createTempDirectory("body-store"), HOT_ENTRIES);
+        System.out.printf("%d pages of %d bytes%n", PAGES, page.getBytes(UTF_8).length);
+
+        measure("on heap, not read", page, false, bytes -> new PageBody(bytes, "UTF-8"));
+        measure("on heap, read", page, true, bytes -> new PageBody(bytes, "UTF-8"));
+        measure("body store, not read", page, false, bytes -> new PageBody(bytes, "UTF-8", store));
+        measure("body store, read", page, true, bytes -> new PageBody(bytes, "UTF-8", store));
+    }
+
+    private static void measure(String name, String page, boolean read, Function<byte[], PageBody> bodyOf) {
+        long before = usedHeapAfterGc();
+        List<PageBody> bodies = new ArrayList<>();
+        for (int i = 0; i < PAGES; i++) {
+            PageBody body = bodyOf.apply(page.replace("Product listing", "Product listing " + i).getBytes(UTF_8));
+            if (read) {
+                body.text();
+            }
+            bodies.add(body);
+        }
+        long retained = usedHeapAfterGc() - before;
+        System.out.printf("%-22s %,10d bytes retained per page%n", name, retained / bodies.size());
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
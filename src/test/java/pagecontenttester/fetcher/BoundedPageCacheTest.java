@@ -0,0 +1,108 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static pagecontenttester.fetcher.PageCache.EvictionPolicy.LRU;
+import static pagecontenttester.fetcher.PageCache.EvictionPolicy.TINY_LFU;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class BoundedPageCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    @Test
+    public void should_evict_least_recently_used_entry_if_max_entries_exceeded() {
+        PageCache<String, String> cache = new BoundedPageCache<>(LRU, 2, 0, 0, String::length, ticker::get);
+        cache.put("a", "page a");
+        cache.put("b", "page b");
+        cache.get("a");
+        cache.put("c", "page c");
+
+        assertThat(cache.get("a"), is("page a"));
+        assertThat(cache.get("b"), is(nullValue()));
+        assertThat(cache.get("c"), is("page c"));
+        assertThat(cache.stats().getEvictionCount(), is(1L));
+    }
+
+    @Test
+    public void should_evict_entries_if_max_weight_exceeded() {
+        PageCache<String, String> cache = new BoundedPageCache<>(LRU, 0, 10, 0, String::length, ticker::get);
+        cache.put("a", "12345");
+        cache.put("b", "12345");
+        cache.put("c", "123");
+
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.stats().getEntryCount(), is(2L));
+        assertThat(cache.stats().getWeightedSize(), is(8L));
+    }
+
+    @Test
+    public void should_expire_entries_after_ttl() {
+        PageCache<String, String> cache = new BoundedPageCache<>(LRU, 0, 0, 100, String::length, ticker::get);
+        cache.put("a", "page a");
+        ticker.addAndGet(99);
+        assertThat(cache.get("a"), is("page a"));
+        ticker.addAndGet(1);
+        assertThat(cache.get("a"), is(nullValue()));
+    }
+
+    @Test
+    public void tiny_lfu_should_keep_frequently_requested_entry() {
+        PageCache<String, String> cache = new BoundedPageCache<>(TINY_LFU, 3, 0, 0, String::length, ticker::get);
+        cache.put("popular", "page");
+        for (int i = 0; i < 10; i++) {
+            cache.get("popular");
+        }
+        for (int i = 0; i < 20; i++) {
+            cache.get("one-off-" + i);
+            cache.put("one-off-" + i, "page");
+        }
+
+        assertThat(cache.get("popular"), is("page"));
+        assertThat(cache.stats().getEntryCount(), is(3L));
+    }
+
+    @Test
+    public void should_peek_without_counting_hits_and_misses() {
+        PageCache<String, String> cache = new BoundedPageCache<>(LRU, 10, 0, 10, String::length, ticker::get);
+        cache.put("a", "page a");
+
+        assertThat(cache.peek("a"), is("page a"));
+        assertThat(cache.peek("b"), is(nullValue()));
+        ticker.addAndGet(10);
+        assertThat(cache.peek("a"), is(nullValue()));
+        assertThat(cache.stats().getHitCount(), is(0L));
+        assertThat(cache.stats().getMissCount(), is(0L));
+    }
+
+    @Test
+    public void should_count_hits_misses_and_loads() {
+        PageCache<String, String> cache = new BoundedPageCache<>(LRU, 10, 0, 0, String::length, ticker::get);
+        cache.get("a");
+        cache.recordLoad(200);
+        cache.put("a", "page a");
+        cache.get("a");
+        cache.get("a");
+
+        PageCacheStats stats = cache.stats();
+        assertThat(stats.getHitCount(), is(2L));
+        assertThat(stats.getMissCount(), is(1L));
+        assertThat(stats.getLoadCount(), is(1L));
+        assertThat(stats.averageLoadPenalty(), is(200.0));
+    }
+
+    @Test
+    public void should_find_eviction_policy_ignoring_case() {
+        assertThat(PageCache.EvictionPolicy.of("LRU"), is(LRU));
+        assertThat(PageCache.EvictionPolicy.of("TinyLFU"), is(TINY_LFU));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_unknown_eviction_policy() {
+        PageCache.EvictionPolicy.of("tinylru");
+    }
+}
@@ -0,0 +1,46 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompressedBodyStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void should_return_stored_bodies_across_segments() {
+        CompressedBodyStore store = new CompressedBodyStore(folder.getRoot().toPath(), 1, 4096);
+        List<CompressedBodyStore.Handle> handles = new ArrayList<>();
+        for (int products = 0; products < 50; products++) {
+            handles.add(store.put(BenchmarkPages.productListing(products).getBytes(UTF_8)));
+        }
+        for (int products = 0; products < 50; products++) {
+            assertThat(new String(store.get(handles.get(products)), UTF_8), is(BenchmarkPages.productListing(products)));
+        }
+    }
+
+    @Test
+    public void should_decode_stored_page_body_again_with_detected_charset() {
+        CompressedBodyStore store = new CompressedBodyStore(folder.getRoot().toPath(), 1);
+        String latin = "<meta charset=\"ISO-8859-1\"><p>Käse</p>";
+        PageBody first = new PageBody(latin.getBytes(ISO_8859_1), null, store);
+        PageBody second = new PageBody("{\"ä\": 1}".getBytes(UTF_8), "UTF-8", store);
+
+        for (int i = 0; i < 3; i++) {
+            // only one text fits into the hot set, the bodies are decoded again in turns
+            assertThat(first.text(), is(latin));
+            assertThat(second.text(), is("{\"ä\": 1}"));
+        }
+        assertThat(first.parse("http://localhost/").charset(), is(ISO_8859_1));
+    }
+}
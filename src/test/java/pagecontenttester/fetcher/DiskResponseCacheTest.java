@@ -0,0 +1,98 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.jsoup.Connection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskResponseCacheTest {
+
+    private static final String BODY = "<html><head><title>cached page</title></head><body><h1>hello</h1></body></html>";
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StubServer().handle("/page", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            exchange.getResponseHeaders().add("Set-Cookie", "session=abc");
+            server.send(exchange, 200, BODY);
+        });
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_store_response_and_reuse_it_if_not_modified() throws IOException {
+        DiskResponseCache diskCache = new DiskResponseCache(folder.getRoot().toPath());
+
+        Connection.Response first = fetcher(diskCache).fetch(server.url("/page"));
+        Connection.Response second = fetcher(diskCache).fetch(server.url("/page"));
+
+        assertThat(first.statusCode(), is(200));
+        assertThat(second.statusCode(), is(200));
+        assertThat(second.parse().title(), is("cached page"));
+        assertThat(second.cookie("session"), is("abc"));
+        assertThat(server.getRequestCount(), is(2));
+        assertThat(server.getBodyBytesSent(), is((long) BODY.length()));
+        assertThat(diskCache.getNotModifiedCount(), is(1L));
+        assertThat(diskCache.getBytesSaved(), is((long) BODY.length()));
+    }
+
+    @Test
+    public void should_revalidate_responses_stored_by_a_previous_run() throws IOException {
+        fetcher(new DiskResponseCache(folder.getRoot().toPath())).fetch(server.url("/page"));
+
+        DiskResponseCache nextRun = new DiskResponseCache(folder.getRoot().toPath());
+        Connection.Response response = fetcher(nextRun).fetch(server.url("/page"));
+
+        assertThat(response.body(), containsString("<h1>hello</h1>"));
+        assertThat(nextRun.getBytesSaved(), is((long) BODY.length()));
+    }
+
+    @Test
+    public void should_not_find_response_for_unknown_key() {
+        DiskResponseCache diskCache = new DiskResponseCache(folder.getRoot().toPath());
+        assertThat(diskCache.load("GET http://localhost/unknown"), is(nullValue()));
+    }
+
+    @Test
+    public void should_use_same_key_for_equivalent_urls() {
+        FetchRequestParameters defaultPort = FetchRequestParameters.builder()
+                .urlToFetch("HTTP://Example.com:80").method(Connection.Method.GET).timeout(1).build();
+        FetchRequestParameters explicitPath = FetchRequestParameters.builder()
+                .urlToFetch("http://example.com/").method(Connection.Method.GET).timeout(2).build();
+        assertThat(defaultPort.normalizedKey(), is(explicitPath.normalizedKey()));
+    }
+
+    private static Fetcher fetcher(DiskResponseCache diskCache) {
+        return Fetcher.builder()
+                .deviceType(DESKTOP)
+                .cookie(Collections.emptyMap())
+                .timeout(5000)
+                .diskCache(diskCache)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static pagecontenttester.fetcher.DocumentRetention.Policy.BOUNDED;
+import static pagecontenttester.fetcher.DocumentRetention.Policy.SOFT;
+import static pagecontenttester.fetcher.DocumentRetention.Policy.STRONG;
+
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class DocumentRetentionTest {
+
+    @Test
+    public void should_keep_documents_as_long_as_their_page() {
+        DocumentRetention retention = new DocumentRetention(STRONG, 0);
+
+        assertThat(retention.retain("document", Long.MAX_VALUE).get(), is("document"));
+        assertThat(retention.isStrong(), is(true));
+    }
+
+    @Test
+    public void should_keep_softly_reachable_documents() {
+        DocumentRetention retention = new DocumentRetention(SOFT, 0);
+        String document = "document";
+
+        assertThat(retention.retain(document, 10).get(), is(document));
+        assertThat(retention.isStrong(), is(false));
+    }
+
+    @Test
+    public void should_drop_least_recently_used_documents_beyond_max_weight() {
+        DocumentRetention retention = new DocumentRetention(BOUNDED, 10);
+        Supplier<String> first = retention.retain("first", 4);
+        Supplier<String> second = retention.retain("second", 4);
+
+        assertThat(first.get(), is("first"));
+        Supplier<String> third = retention.retain("third", 4);
+
+        assertThat(first.get(), is("first"));
+        assertThat(second.get(), is(nullValue()));
+        assertThat(third.get(), is("third"));
+    }
+
+    @Test
+    public void should_count_reparses() {
+        DocumentRetention retention = new DocumentRetention(BOUNDED, 10);
+        retention.recordParse(false);
+        retention.recordParse(false);
+        retention.recordParse(true);
+
+        assertThat(retention.stats().getParseCount(), is(3L));
+        assertThat(retention.stats().getReparseCount(), is(1L));
+        assertThat(new DocumentStats(0, 0).reparseRate(), is(0.0));
+    }
+
+    @Test
+    public void should_find_policy_ignoring_case() {
+        assertThat(DocumentRetention.Policy.of("Soft"), is(SOFT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_unknown_policy() {
+        DocumentRetention.Policy.of("weak");
+    }
+}
@@ -0,0 +1,66 @@
+package pagecontenttester.fetcher;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Building the element index and answering a number of simple queries from it,
+ * compared to answering the same queries by traversing the DOM.
+ * Where both lines cross, the index pays for itself.
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark=ElementIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementIndexBenchmark {
+
+    private static final String[] SIMPLE_SELECTORS = {
+            "#header", ".price", "article", ".product-name", "h2", "button", "#footer", ".sponsored",
+            "#content", ".description", "img", ".add-to-cart", "nav", ".headline", "li", ".next"
+    };
+
+    @Param({"10", "200", "1000"})
+    private int products;
+
+    @Param({"1", "4", "8", "16"})
+    private int queries;
+
+    private Document document;
+
+    @Setup
+    public void parsePage() {
+        document = Jsoup.parse(BenchmarkPages.productListing(products), "https://www.example.com/products");
+    }
+
+    @Benchmark
+    public void traverseDom(Blackhole blackhole) {
+        for (int i = 0; i < queries; i++) {
+            blackhole.consume(SelectorCache.select(SIMPLE_SELECTORS[i], document).size());
+        }
+    }
+
+    @Benchmark
+    public void buildIndexAndLookup(Blackhole blackhole) {
+        ElementIndex index = ElementIndexTest.indexOf(document);
+        for (int i = 0; i < queries; i++) {
+            blackhole.consume(index.lookup(SIMPLE_SELECTORS[i]).size());
+        }
+    }
+}
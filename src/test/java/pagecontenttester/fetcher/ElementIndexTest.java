@@ -0,0 +1,42 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+public class ElementIndexTest {
+
+    private final Document document = Jsoup.parse(BenchmarkPages.productListing(20)
+            .replace("</main>", "<div id=\"footer\" class=\"Teaser teaser big\"></div><DIV CLASS=\"price\"></DIV></main>"));
+    private final ElementIndex index = indexOf(document);
+
+    @Test
+    public void should_find_same_elements_as_jsoup() {
+        String[] selectors = {"#header", "#footer", "#missing", ".price", ".PRICE", ".teaser", ".sponsored", "article", "DIV", "h2", "canvas"};
+        for (String selector : selectors) {
+            assertThat(selector, index.lookup(selector), is(document.select(selector)));
+        }
+    }
+
+    @Test
+    public void should_leave_other_selectors_to_jsoup() {
+        assertThat(index.lookup("div.price"), is(nullValue()));
+        assertThat(index.lookup("article .price"), is(nullValue()));
+        assertThat(index.lookup("h1, h2"), is(nullValue()));
+        assertThat(index.lookup("[data-id]"), is(nullValue()));
+        assertThat(index.lookup("li:first-child"), is(nullValue()));
+    }
+
+    static ElementIndex indexOf(Document document) {
+        ElementIndex index = new ElementIndex();
+        for (Element element : document.getAllElements()) {
+            index.add(element);
+        }
+        return index;
+    }
+}
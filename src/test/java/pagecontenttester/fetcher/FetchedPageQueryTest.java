@@ -0,0 +1,123 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.nodes.Document;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FetchedPageQueryTest {
+
+    private StubServer server;
+    private FetchedPage page;
+
+    @Before
+    public void fetchPage() throws IOException {
+        server = new StubServer().respond("/products", 200, BenchmarkPages.productListing(20));
+        page = FetchedPage.fetchAsync(server.url("/products"), DESKTOP, "FetchedPageQueryTest").join();
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_query_each_selector_only_once() {
+        assertThat(page.getElement("article.product").attr("data-id"), is("0"));
+        assertThat(page.getElementLastOf("article.product").attr("data-id"), is("19"));
+        assertThat(page.getElement("article.product", 7).hasClass("sponsored"), is(true));
+        assertThat(page.getElementCount("article.product"), is(20));
+        assertThat(page.isElementPresent("article.product"), is(true));
+        assertThat(page.getElement(".price"), sameInstance(page.getElements(".price").first()));
+
+        assertThat(page.selectionCount(), is(2));
+    }
+
+    @Test
+    public void should_answer_batch_of_queries() {
+        PageQueryResult result = page.query()
+                .count("article.product")
+                .present(".sponsored")
+                .present(".does-not-exist")
+                .texts("li.nav-item")
+                .count("li.nav-item")
+                .run();
+
+        assertThat(result.getCount("article.product"), is(20));
+        assertThat(result.isPresent(".sponsored"), is(true));
+        assertThat(result.isPresent(".does-not-exist"), is(false));
+        assertThat(result.getTexts("li.nav-item").get(3), is("Category 3"));
+        assertThat(result.getCount("li.nav-item"), is(12));
+        assertThat(page.selectionCount(), is(4));
+        assertThat(page.getElement("article.product", 7).hasClass("sponsored"), is(true));
+        assertThat(page.selectionCount(), is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_only_answer_queried_selectors() {
+        page.query().present("h1").run().getCount("h1");
+    }
+
+    @Test
+    public void should_not_share_remembered_elements_with_caller() {
+        page.getElements("article.product").clear();
+
+        assertThat(page.getElementCount("article.product"), is(20));
+    }
+
+    @Test
+    public void should_parse_once_and_answer_concurrent_queries() throws Exception {
+        FetchedPage unparsed = FetchedPage.fetchAsync(server.url("/products?concurrent"), DESKTOP, "FetchedPageQueryTest").join();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Document>> queries = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String selector = BenchmarkPages.SELECTORS[i % BenchmarkPages.SELECTORS.length];
+            queries.add(executor.submit(() -> {
+                assertThat(selector, unparsed.getElementCount(selector), is(page.getElementCount(selector)));
+                return unparsed.getElement("title").ownerDocument();
+            }));
+        }
+        Document document = queries.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<Document> query : queries) {
+            assertThat(query.get(5, TimeUnit.SECONDS), sameInstance(document));
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void should_parse_in_background() throws Exception {
+        FetchedPage unparsed = FetchedPage.fetchAsync(server.url("/products?background"), DESKTOP, "FetchedPageQueryTest").join();
+        assertThat(unparsed.isParsed(), is(false));
+
+        unparsed.parseInBackground();
+        for (int i = 0; i < 500 && !unparsed.isParsed(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(unparsed.isParsed(), is(true));
+        assertThat(unparsed.getElementCount("article.product"), is(20));
+    }
+
+    @Test
+    public void should_keep_remembered_results_when_document_is_requested() {
+        assertThat(page.isElementPresentNthTimes("article.sponsored", 3), is(true));
+
+        page.getDocument();
+
+        assertThat(page.selectionCount(), is(1));
+    }
+}
@@ -258,14 +258,16 @@ public class FetchedPageTest extends PageContentTester {
     @Test
     public void can_store_page_body() throws IOException, InterruptedException {
         page.get().storePageBody();
+        FetchedPage.flushStoredPageBodies();
         File file = new File("target/page-content-tester/stored/pagecontenttester.fetcher.FetchedPageTest.can_store_page_body.html");
         String pageBody = FileUtils.readFileToString(file);
         assertThat(pageBody, containsString("html"));
     }
 
     @Test
-    public void store_page_body_if_element_not_present() throws IOException {
+    public void store_page_body_if_element_not_present() throws IOException, InterruptedException {
         page.get().getElements("dfghfjhg");
+        FetchedPage.flushStoredPageBodies();
         File file = new File("target/page-content-tester/not-found/pagecontenttester.fetcher.FetchedPageTest.store_page_body_if_element_not_present.html");
         String pageBody = FileUtils.readFileToString(file);
         assertThat(pageBody, containsString("GitHub"));
@@ -0,0 +1,127 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+import static pagecontenttester.fetcher.HeadSection.NOT_FOUND;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jsoup.Connection;
+import org.jsoup.nodes.Document;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import pagecontenttester.annotations.Fetch;
+
+public class HeadSectionTest {
+
+    private static final String PAGE = BenchmarkPages.productListing(2000);
+    private static final String HEAD = PAGE.substring(0, PAGE.indexOf("<body>"));
+
+    private static StubServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new StubServer().respond("/products", 200, PAGE);
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_end_after_head_end_tag() {
+        assertThat(end(HEAD + "<body><div></div></body>"), is(HEAD.length()));
+        assertThat(end("<html><head><title>t</title></head>\n<!-- c --><meta name=x>"), is(35));
+    }
+
+    @Test
+    public void should_end_where_the_body_starts_if_head_is_not_closed() {
+        assertThat(end("<title>t</title><meta charset=utf-8><div class=a>"), is(36));
+        assertThat(end("<html><head><link rel=x></html>"), is(24));
+        assertThat(end("<div>no head at all</div>"), is(0));
+    }
+
+    @Test
+    public void should_skip_markup_in_raw_text_and_comments() {
+        String head = "<head><script>document.write('<body><div>')</script><!-- <div> --><title><p></title>";
+        assertThat(end(head + "<p>"), is(head.length()));
+    }
+
+    @Test
+    public void should_not_find_end_of_incomplete_head() {
+        assertThat(end("<head><title>t</title><met"), is(NOT_FOUND));
+        assertThat(end("<head><script>var a = '<div>';"), is(NOT_FOUND));
+        assertThat(end("<head><meta content=\"a>b"), is(NOT_FOUND));
+        assertThat(end("<head><title>t</title></he"), is(NOT_FOUND));
+    }
+
+    @Test
+    public void should_stop_reading_at_end_of_head() throws IOException {
+        AtomicLong bytesRead = new AtomicLong();
+        byte[] page = PAGE.getBytes(UTF_8);
+        ByteArrayInputStream in = new ByteArrayInputStream(page) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                int length = super.read(b, off, len);
+                bytesRead.addAndGet(Math.max(length, 0));
+                return length;
+            }
+        };
+
+        assertThat(new String(HeadSection.read(in), UTF_8), is(HEAD));
+        assertThat(bytesRead.get(), lessThan(page.length / 10L));
+    }
+
+    @Test
+    public void should_read_and_parse_head_only_with_pooled_engine() throws IOException {
+        PooledFetchEngine engine = new PooledFetchEngine(10, 2, 30);
+        Connection.Response response = engine.execute(request(true));
+
+        assertThat(response.bodyAsBytes().length, is(HEAD.length()));
+        Document document = new PageBody(response.bodyAsBytes(), response.charset()).parseHead(server.url("/products"));
+        assertThat(document.title(), is("Product listing"));
+        assertThat(document.select("link[rel=canonical]").size(), is(1));
+        assertThat(document.body().childNodeSize(), is(0));
+        // the connection is not reused as its response has not been read completely
+        assertThat(engine.getAvailableConnections(), is(0));
+
+        assertThat(engine.execute(request(false)).bodyAsBytes().length, is(PAGE.getBytes(UTF_8).length));
+    }
+
+    @Test
+    public void should_fetch_page_with_head_only() {
+        FetchedPage page = FetchedPage.annotationCall("localhost/products", DESKTOP, Connection.Method.GET, "http://www.google.com",
+                                                      5000, 0, Collections.emptyMap(), Fetch.Protocol.HTTP, "",
+                                                      server.url("").replaceAll(".*:", ""), true, "HeadSectionTest");
+
+        assertThat(page.getDocument().title(), is("Product listing"));
+        assertThat(page.isElementPresent("meta[name=description]"), is(true));
+        assertThat(page.getElementCount("article.product"), is(0));
+    }
+
+    private static int end(String html) {
+        return HeadSection.end(html.getBytes(UTF_8));
+    }
+
+    private static FetchEngine.Request request(boolean headOnly) {
+        return FetchEngine.Request.builder()
+                .url(server.url("/products"))
+                .method(Connection.Method.GET)
+                .data(Collections.emptyMap())
+                .headers(Collections.emptyMap())
+                .cookies(Collections.emptyMap())
+                .timeout(5000)
+                .ignoreContentType(true)
+                .headOnly(headOnly)
+                .build();
+    }
+}
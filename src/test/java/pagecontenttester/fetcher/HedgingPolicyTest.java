@@ -0,0 +1,164 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jsoup.Connection;
+import org.junit.Test;
+
+public class HedgingPolicyTest {
+
+    private static final long SLOW_RESPONSE_IN_MILLIS = 3000;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicReference<Cancellation> primaryCancellation = new AtomicReference<>();
+    private final CountDownLatch primaryStarted = new CountDownLatch(1);
+
+    @Test
+    public void should_take_hedge_if_first_request_is_slow() throws IOException {
+        HedgingPolicy hedging = new HedgingPolicy(true, 50, 95, 100, Executors.newCachedThreadPool());
+
+        long start = System.currentTimeMillis();
+        Connection.Response response = hedging.execute("staging.example.com", Connection.Method.GET, this::primaryIsSlow);
+
+        assertThat(response.statusMessage(), is("hedge"));
+        assertThat(System.currentTimeMillis() - start, lessThan(SLOW_RESPONSE_IN_MILLIS));
+        assertThat(hedging.stats().getHedgedCount(), is(1L));
+        assertThat(hedging.stats().getHedgeWonCount(), is(1L));
+    }
+
+    @Test
+    public void should_cancel_slow_request_once_hedge_answered() throws IOException {
+        HedgingPolicy hedging = new HedgingPolicy(true, 50, 95, 100, Executors.newCachedThreadPool());
+
+        hedging.execute("staging.example.com", Connection.Method.GET, this::primaryIsSlow);
+
+        assertThat(primaryCancellation.get().isCancelled(), is(true));
+    }
+
+    @Test
+    public void should_abort_slow_request_of_pooled_engine_once_hedge_answered() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PooledFetchEngine engine = new PooledFetchEngine(10, 2, 30);
+        try (StubServer server = new StubServer()) {
+            server.respond("/fast", 200, "fast").handle("/slow", exchange -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                server.send(exchange, 200, "slow");
+            });
+            HedgingPolicy hedging = new HedgingPolicy(true, 50, 95, 100, Executors.newCachedThreadPool());
+
+            Connection.Response response = hedging.execute("localhost", Connection.Method.GET, (cancellation, hedge) ->
+                    engine.execute(PooledFetchEngineTest.request(server, hedge ? "/fast" : "/slow", Connection.Method.GET,
+                                                                 Collections.emptyMap()), cancellation));
+            for (int i = 0; i < 100 && engine.getLeasedConnections() > 0; i++) {
+                Thread.sleep(10);
+            }
+
+            assertThat(response.body(), is("fast"));
+            // the slow request has not been answered yet, its connection is released as it has been aborted
+            assertThat(release.getCount(), is(1L));
+            assertThat(engine.getLeasedConnections(), is(0));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void should_fail_without_hedge_if_first_request_fails_fast() {
+        HedgingPolicy hedging = new HedgingPolicy(true, 5000, 95, 100, Executors.newCachedThreadPool());
+
+        long start = System.currentTimeMillis();
+        try {
+            hedging.execute("staging.example.com", Connection.Method.GET, (cancellation, hedge) -> {
+                calls.incrementAndGet();
+                throw new IOException("refused");
+            });
+        } catch (IOException e) {
+            assertThat(e.getMessage(), is("refused"));
+        }
+
+        assertThat(System.currentTimeMillis() - start, lessThan(5000L));
+        assertThat(calls.get(), is(1));
+        assertThat(hedging.stats().getHedgedCount(), is(0L));
+    }
+
+    @Test
+    public void should_not_hedge_beyond_max_share() throws IOException {
+        HedgingPolicy hedging = new HedgingPolicy(true, 50, 95, 0, Executors.newCachedThreadPool());
+
+        Connection.Response response = hedging.execute("staging.example.com", Connection.Method.GET, this::primaryIsSlow);
+
+        assertThat(response.statusMessage(), is("primary"));
+        assertThat(hedging.stats().getHedgedCount(), is(0L));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    public void should_not_hedge_post_requests() throws IOException {
+        HedgingPolicy hedging = new HedgingPolicy(true, 50, 95, 100, Executors.newCachedThreadPool());
+
+        Connection.Response response = hedging.execute("staging.example.com", Connection.Method.POST, this::primaryIsSlow);
+
+        assertThat(response.statusMessage(), is("primary"));
+        assertThat(hedging.stats().getRequestCount(), is(0L));
+    }
+
+    @Test
+    public void should_hedge_after_observed_percentile() throws IOException {
+        HedgingPolicy hedging = new HedgingPolicy(true, 0, 90, 100, Executors.newCachedThreadPool());
+        for (int i = 0; i < HedgingPolicy.MIN_SAMPLES; i++) {
+            hedging.execute("staging.example.com", Connection.Method.GET, (cancellation, hedge) -> response("warm-up"));
+        }
+        assertThat(hedging.stats().getHedgedCount(), is(0L));
+
+        Connection.Response response = hedging.execute("staging.example.com", Connection.Method.GET, this::primaryIsSlow);
+
+        assertThat(response.statusMessage(), is("hedge"));
+        assertThat(hedging.stats().getHedgeWonCount(), is(1L));
+    }
+
+    /**
+     * the first request blocks until it is cancelled or the slow response time has passed,
+     * the hedge answers as soon as the first request is running
+     */
+    private Connection.Response primaryIsSlow(Cancellation cancellation, boolean hedge) throws IOException {
+        calls.incrementAndGet();
+        try {
+            if (hedge) {
+                primaryStarted.await(5, TimeUnit.SECONDS);
+                return response("hedge");
+            }
+            primaryCancellation.set(cancellation);
+            CountDownLatch cancelled = new CountDownLatch(1);
+            cancellation.onCancel(cancelled::countDown);
+            primaryStarted.countDown();
+            if (cancelled.await(SLOW_RESPONSE_IN_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new IOException("aborted");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        return response("primary");
+    }
+
+    private static Connection.Response response(String statusMessage) throws IOException {
+        return new BufferedResponse(new URL("http://staging.example.com/"), Connection.Method.GET, 200, statusMessage,
+                                    "text/html", null, Collections.emptyMap(), Collections.emptyMap(), new byte[0]);
+    }
+}
@@ -0,0 +1,78 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class HostThrottleTest {
+
+    @Test
+    public void should_limit_requests_in_flight_per_host() throws Exception {
+        HostThrottle throttle = new HostThrottle(2, 0);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        List<Future<?>> requests = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            requests.add(executor.submit(() -> throttle.call("staging.example.com", () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(50);
+                return inFlight.decrementAndGet();
+            })));
+        }
+        for (Future<?> request : requests) {
+            request.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(maxInFlight.get(), is(2));
+        assertThat(throttle.stats().getRequestCount(), is(6L));
+        assertThat(throttle.stats().getMaxWaitTimeInNanos(), greaterThan(0L));
+    }
+
+    @Test
+    public void should_limit_requests_per_second_per_host() throws Exception {
+        HostThrottle throttle = new HostThrottle(0, 20);
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            throttle.acquire("staging.example.com").close();
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(200L));
+    }
+
+    @Test
+    public void should_not_hold_back_other_hosts() throws Exception {
+        HostThrottle throttle = new HostThrottle(1, 0);
+        HostThrottle.Permit busy = throttle.acquire("slow.example.com");
+        try {
+            long start = System.nanoTime();
+            throttle.acquire("fast.example.com").close();
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThanOrEqualTo(100L));
+        } finally {
+            busy.close();
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package pagecontenttester.fetcher;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Connection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Many threads fetching from a local https server: jsoup with the system properties set on every fetch
+ * as the fetcher used to, jsoup with them set once, and the pooled engine using the shared ssl context.
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark=HttpsFetchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class HttpsFetchBenchmark {
+
+    private StubServer server;
+    private FetchEngine.Request request;
+    private final FetchEngine jsoup = new JsoupFetchEngine();
+    private final FetchEngine pooled = new PooledFetchEngine(200, 64, 30);
+
+    @Setup
+    public void startServer() throws IOException {
+        server = StubServer.https().respond("/products", 200, BenchmarkPages.productListing(10));
+        request = PooledFetchEngineTest.request(server, "/products", Connection.Method.GET, Collections.emptyMap());
+    }
+
+    @TearDown
+    public void stopServer() {
+        server.close();
+    }
+
+    @Benchmark
+    public int jsoupSettingPropertiesPerFetch() throws IOException {
+        System.setProperty("sun.net.http.allowRestrictedHeaders", "true");
+        System.setProperty("javax.net.ssl.trustStore", "/etc/ssl/certs/java/cacerts");
+        return jsoup.execute(request).statusCode();
+    }
+
+    @Benchmark
+    public int jsoup() throws IOException {
+        return jsoup.execute(request).statusCode();
+    }
+
+    @Benchmark
+    public int pooledSharedContext() throws IOException {
+        return pooled.execute(request).statusCode();
+    }
+}
@@ -0,0 +1,69 @@
+package pagecontenttester.fetcher;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of asserting three fields of an api response: parsing the body for every assertion as getJsonResponse used to,
+ * parsing it once, or extracting the fields by json path without building the tree.
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark=JsonPathBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonPathBenchmark {
+
+    @Param({"10", "1000"})
+    private int items;
+
+    private String body;
+    private JsonPath total;
+    private JsonPath prices;
+    private JsonPath firstName;
+
+    @Setup
+    public void createResponse() {
+        body = BenchmarkPages.apiResponse(items);
+        total = JsonPath.compile("$.total");
+        prices = JsonPath.compile("$.items[*].price");
+        firstName = JsonPath.compile("$.items[0].name");
+    }
+
+    @Benchmark
+    public void parseOnEveryAssertion(Blackhole blackhole) {
+        blackhole.consume(new JSONObject(body).getInt("total"));
+        blackhole.consume(new JSONObject(body).getJSONArray("items").length());
+        blackhole.consume(new JSONObject(body).getJSONArray("items").getJSONObject(0).getString("name"));
+    }
+
+    @Benchmark
+    public void parseOnce(Blackhole blackhole) {
+        JSONObject json = new JSONObject(body);
+        blackhole.consume(json.getInt("total"));
+        blackhole.consume(json.getJSONArray("items").length());
+        blackhole.consume(json.getJSONArray("items").getJSONObject(0).getString("name"));
+    }
+
+    @Benchmark
+    public void jsonPath(Blackhole blackhole) {
+        blackhole.consume(total.select(body));
+        blackhole.consume(prices.select(body));
+        blackhole.consume(firstName.select(body));
+    }
+}
@@ -0,0 +1,112 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class JsonPathTest {
+
+    private static final String ITEMS = "{\"total\": 3, \"items\": ["
+            + "{\"name\": \"a\", \"price\": 1.5, \"tags\": [\"x\", \"y\"]},"
+            + "{\"name\": \"b \\\"quoted\\\" ]}\", \"price\": 2},"
+            + "{\"name\": \"c\", \"price\": null, \"nested\": {\"price\": 99}}],"
+            + "\"first name\": \"d\"}";
+
+    private static StubServer server;
+
+    @BeforeClass
+    public static void startServer() throws IOException {
+        server = new StubServer()
+                .handle("/items", exchange -> {
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    server.send(exchange, 200, ITEMS);
+                })
+                .handle("/list", exchange -> {
+                    exchange.getResponseHeaders().set("Content-Type", "application/json");
+                    server.send(exchange, 200, "[{\"id\": 1}, {\"id\": 2}]");
+                });
+    }
+
+    @AfterClass
+    public static void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_select_like_the_tree() {
+        assertThat(select("$.items[*].price"), contains(1.5, 2, JSONObject.NULL));
+        assertThat(select("$.items[1].name"), contains("b \"quoted\" ]}"));
+        assertThat(select("$.items[0].tags[*]"), contains("x", "y"));
+        assertThat(select("$['first name']"), contains("d"));
+        assertThat(select("$.*").size(), is(3));
+        assertThat(select("$.items[5]"), is(empty()));
+        assertThat(select("$.total.price"), is(empty()));
+    }
+
+    @Test
+    public void should_build_matching_objects_and_arrays() {
+        List<Object> items = select("$.items[2]");
+        assertThat(((JSONObject) items.get(0)).getJSONObject("nested").getInt("price"), is(99));
+        assertThat(((JSONArray) select("$.items").get(0)).length(), is(3));
+        assertThat(((JSONObject) select("$").get(0)).getInt("total"), is(3));
+    }
+
+    @Test
+    public void should_select_from_top_level_arrays_and_values() {
+        assertThat(JsonPath.compile("$[*].id").select("[{\"id\": 1}, {\"id\": 2}]"), contains(1, 2));
+        assertThat(JsonPath.compile("$").select(" \"text\" "), contains("text"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void should_reject_malformed_json() {
+        JsonPath.compile("$.items[*]").select("{\"items\": [1, 2}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void should_reject_unsupported_path() {
+        JsonPath.compile("$..price");
+    }
+
+    @Test
+    public void should_hand_out_copies_of_json_parsed_once() {
+        FetchedPage page = FetchedPage.fetchAsync(server.url("/items"), DESKTOP, "JsonPathTest").join();
+
+        JSONObject modified = page.getJsonResponse();
+        modified.remove("total");
+        modified.getJSONArray("items").getJSONObject(0).put("name", "modified");
+        ((JSONObject) page.json("$.items[0]").get(0)).put("price", 0);
+        page.json("$.items[*].name").clear();
+
+        assertThat(page.getJsonResponse(), is(not(sameInstance(page.getJsonResponse()))));
+        assertThat(page.getJsonResponse().getInt("total"), is(3));
+        assertThat(page.getJsonResponse().getJSONArray("items").getJSONObject(0).getString("name"), is("a"));
+        assertThat(page.json("$.items[0].price"), contains(1.5));
+        assertThat(page.json("$.items[*].name").size(), is(3));
+    }
+
+    @Test
+    public void should_parse_json_array_of_page() {
+        FetchedPage page = FetchedPage.fetchAsync(server.url("/list"), DESKTOP, "JsonPathTest").join();
+
+        assertThat(page.getJsonArrayResponse().getJSONObject(1).getInt("id"), is(2));
+        assertThat(page.json("$[*].id"), contains(1, 2));
+    }
+
+    private static List<Object> select(String path) {
+        return JsonPath.compile(path).select(ITEMS);
+    }
+}
@@ -0,0 +1,73 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_16LE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+public class PageBodyTest {
+
+    private static final String LATIN_1_PAGE =
+            "<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=ISO-8859-1\">"
+            + "<title>Grüße</title></head><body><p>Käse</p></body></html>";
+
+    @Test
+    public void should_decode_with_charset_declared_in_page() {
+        PageBody body = new PageBody(LATIN_1_PAGE.getBytes(ISO_8859_1), null);
+
+        assertThat(body.text(), is(LATIN_1_PAGE));
+        Document document = body.parse("http://localhost/");
+        assertThat(document.title(), is("Grüße"));
+        assertThat(document.charset(), is(ISO_8859_1));
+    }
+
+    @Test
+    public void should_prefer_charset_of_content_type_over_page() {
+        String page = "<meta charset=\"ISO-8859-1\"><p>Käse</p>";
+        assertThat(new PageBody(page.getBytes(UTF_8), "UTF-8").text(), is(page));
+    }
+
+    @Test
+    public void should_prefer_byte_order_mark_and_drop_it() {
+        String page = "\uFEFF<meta charset=\"ISO-8859-1\"><p>Käse</p>";
+        assertThat(new PageBody(page.getBytes(UTF_16LE), "ISO-8859-1").text(), is(page.substring(1)));
+    }
+
+    @Test
+    public void should_ignore_meta_tags_in_scripts() {
+        String page = "<head><script>var meta = '<meta charset=\"ISO-8859-1\">';</script></head><p>Käse</p>";
+        assertThat(new PageBody(page.getBytes(UTF_8), null).text(), is(page));
+    }
+
+    @Test
+    public void should_decode_with_encoding_of_xml_declaration() {
+        String page = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><products><name>Käse</name></products>";
+        assertThat(new PageBody(page.getBytes(ISO_8859_1), null).text(), is(page));
+    }
+
+    @Test
+    public void should_show_the_same_text_in_body_and_document() throws IOException {
+        try (StubServer server = new StubServer().handle("/latin", exchange -> {
+            byte[] bytes = LATIN_1_PAGE.getBytes(ISO_8859_1);
+            exchange.getResponseHeaders().set("Content-Type", "text/html");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        })) {
+            FetchedPage page = FetchedPage.fetchAsync(server.url("/latin"), DESKTOP, "PageBodyTest").join();
+
+            assertThat(page.getPageBody(), containsString("<p>Käse</p>"));
+            assertThat(page.getDocument().select("p").text(), is("Käse"));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+import static pagecontenttester.fetcher.PageDumpWriter.BODIES;
+import static pagecontenttester.fetcher.PageDumpWriter.INDEX;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PageDumpWriterTest {
+
+    private static final String BODY = BenchmarkPages.productListing(10);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void should_write_identical_bodies_once() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        PageDumpWriter writer = new PageDumpWriter(directory, false, 10);
+
+        writer.store("not-found", "FirstTest.test", "http://localhost/a", BODY);
+        writer.store("not-found", "FirstTest.test", "http://localhost/a", BODY);
+        writer.store("not-found", "SecondTest.test", "http://localhost/a", BODY);
+        writer.flush();
+
+        assertThat(fileCount(directory.resolve(BODIES)), is(1L));
+        assertThat(Files.readAllLines(directory.resolve("not-found").resolve(INDEX), UTF_8).size(), is(2));
+        assertThat(new String(Files.readAllBytes(directory.resolve("not-found/SecondTest.test.html")), UTF_8), is(BODY));
+    }
+
+    @Test
+    public void should_index_compressed_bodies() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        PageDumpWriter writer = new PageDumpWriter(directory, true, 1);
+
+        writer.store("stored", "SomeTest.test", "http://localhost/a", BODY);
+        writer.store("stored", "SomeTest.test", "http://localhost/b", "{}");
+        writer.flush();
+
+        assertThat(fileCount(directory.resolve(BODIES)), is(2L));
+        String indexed = Files.readAllLines(directory.resolve("stored").resolve(INDEX), UTF_8).get(0);
+        assertThat(indexed.split("\t")[1], is("http://localhost/a"));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve("stored").resolve(indexed.split("\t")[2])))) {
+            assertThat(IOUtils.toString(in, UTF_8), is(BODY));
+        }
+        assertThat(new File(directory.toFile(), "stored").list(), arrayContaining(INDEX));
+    }
+
+    private static long fileCount(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.jsoup.Connection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PooledFetchEngineTest {
+
+    private final PooledFetchEngine engine = new PooledFetchEngine(10, 2, 30);
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private StubServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StubServer()
+                .handle("/page", exchange -> {
+                    clientPorts.add(exchange.getRemoteAddress().getPort());
+                    exchange.getResponseHeaders().add("Set-Cookie", "session=abc; Path=/");
+                    exchange.getResponseHeaders().set("X-Cookie", String.valueOf(exchange.getRequestHeaders().getFirst("Cookie")));
+                    server.send(exchange, 200, "<html><head><title>pooled</title></head></html>");
+                })
+                .handle("/form", exchange -> server.send(exchange, 200, IOUtils.toString(exchange.getRequestBody(), UTF_8)))
+                .handle("/moved", exchange -> {
+                    exchange.getResponseHeaders().set("Location", server.url("/page"));
+                    server.send(exchange, 302, "");
+                });
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_fetch_page_with_headers_and_cookies() throws IOException {
+        Connection.Response response = engine.execute(request("/page", Connection.Method.GET, Collections.singletonMap("tester", "1")));
+
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.parse().title(), is("pooled"));
+        assertThat(response.cookie("session"), is("abc"));
+        assertThat(response.header("x-cookie"), is("tester=1"));
+    }
+
+    @Test
+    public void should_reuse_kept_alive_connection() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            engine.execute(request("/page", Connection.Method.GET, Collections.emptyMap()));
+        }
+        assertThat(clientPorts.size(), is(1));
+        assertThat(engine.getLeasedConnections(), is(0));
+        assertThat(engine.getAvailableConnections(), is(1));
+    }
+
+    @Test
+    public void should_close_connection_idle_for_longer_than_keep_alive() throws Exception {
+        PooledFetchEngine shortKeepAlive = new PooledFetchEngine(10, 2, 1);
+        shortKeepAlive.execute(request("/page", Connection.Method.GET, Collections.emptyMap()));
+        assertThat(shortKeepAlive.getAvailableConnections(), is(1));
+
+        for (int i = 0; i < 100 && shortKeepAlive.getAvailableConnections() > 0; i++) {
+            Thread.sleep(50);
+        }
+
+        assertThat(shortKeepAlive.getAvailableConnections(), is(0));
+    }
+
+    @Test
+    public void should_send_form_data_on_post() throws IOException {
+        FetchEngine.Request request = FetchEngine.Request.builder()
+                .url(server.url("/form"))
+                .method(Connection.Method.POST)
+                .data(Collections.singletonMap("key", "value"))
+                .headers(Collections.emptyMap())
+                .cookies(Collections.emptyMap())
+                .timeout(5000)
+                .ignoreContentType(true)
+                .build();
+        assertThat(engine.execute(request).body(), is("key=value"));
+    }
+
+    @Test
+    public void should_follow_redirects() throws IOException {
+        Connection.Response response = engine.execute(request("/moved", Connection.Method.GET, Collections.emptyMap()));
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.url().toExternalForm(), endsWith("/page"));
+    }
+
+    @Test
+    public void should_fetch_from_server_with_self_signed_certificate() throws IOException {
+        try (StubServer https = StubServer.https().respond("/secure", 200, "<html><head><title>secure</title></head></html>")) {
+            FetchEngine.Request request = request(https, "/secure", Connection.Method.GET, Collections.emptyMap());
+
+            assertThat(engine.execute(request).parse().title(), is("secure"));
+            assertThat(new JsoupFetchEngine().execute(request).parse().title(), is("secure"));
+        }
+    }
+
+    private FetchEngine.Request request(String path, Connection.Method method, Map<String, String> cookies) {
+        return request(server, path, method, cookies);
+    }
+
+    static FetchEngine.Request request(StubServer server, String path, Connection.Method method, Map<String, String> cookies) {
+        return FetchEngine.Request.builder()
+                .url(server.url(path))
+                .method(method)
+                .data(Collections.emptyMap())
+                .headers(Collections.emptyMap())
+                .cookies(cookies)
+                .userAgent("page-content-tester")
+                .referrer("http://www.google.com")
+                .timeout(5000)
+                .followRedirects(true)
+                .ignoreContentType(true)
+                .build();
+    }
+}
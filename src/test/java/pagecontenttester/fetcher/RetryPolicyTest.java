@@ -0,0 +1,154 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static pagecontenttester.fetcher.FetchedPage.DeviceType.DESKTOP;
+import static pagecontenttester.fetcher.RetryPolicy.NO_RETRY;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.Connection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private StubServer server;
+    private final AtomicInteger unavailableResponses = new AtomicInteger();
+
+    @Before
+    public void startServer() throws IOException {
+        server = new StubServer()
+                .handle("/flaky", exchange -> {
+                    if (unavailableResponses.getAndIncrement() < 2) {
+                        exchange.getResponseHeaders().set("Retry-After", "0");
+                        server.send(exchange, 503, "unavailable");
+                        return;
+                    }
+                    server.send(exchange, 200, "<html><head><title>back again</title></head></html>");
+                })
+                .respond("/missing", 404, "not found");
+    }
+
+    @After
+    public void stopServer() {
+        server.close();
+    }
+
+    @Test
+    public void should_back_off_exponentially_up_to_max() {
+        RetryPolicy policy = policy(new RetryPolicy.RetryBudget(0, 100));
+
+        assertThat(policy.delayBeforeRetry(0, 10, null), is(100L));
+        assertThat(policy.delayBeforeRetry(1, 10, null), is(200L));
+        assertThat(policy.delayBeforeRetry(2, 10, null), is(400L));
+        assertThat(policy.delayBeforeRetry(5, 10, null), is(1000L));
+        assertThat(policy.delayBeforeRetry(10, 10, null), is(NO_RETRY));
+    }
+
+    @Test
+    public void should_honour_retry_after() {
+        RetryPolicy policy = policy(new RetryPolicy.RetryBudget(0, 100));
+
+        assertThat(policy.delayBeforeRetry(0, 3, "1"), is(1000L));
+        assertThat(policy.delayBeforeRetry(0, 3, "120"), is(NO_RETRY));
+        assertThat(RetryPolicy.retryAfterInMillis("Wed, 21 Oct 2015 07:28:00 GMT"), is(0L));
+    }
+
+    @Test
+    public void should_stop_retrying_once_budget_is_spent() {
+        RetryPolicy.RetryBudget budget = new RetryPolicy.RetryBudget(0.5, 1);
+        RetryPolicy policy = policy(budget);
+        policy.recordFetch();
+        policy.recordFetch();
+
+        assertThat(policy.delayBeforeRetry(0, 3, null), is(100L));
+        assertThat(policy.delayBeforeRetry(1, 3, null), is(200L));
+        assertThat(policy.delayBeforeRetry(2, 3, null), is(NO_RETRY));
+        assertThat(budget.getRetryCount(), is(2L));
+        assertThat(budget.getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void should_classify_retryable_failures() {
+        RetryPolicy policy = policy(new RetryPolicy.RetryBudget(0, 100));
+
+        assertThat(policy.isRetryable(new UnknownHostException("staging"), Connection.Method.GET), is(true));
+        assertThat(policy.isRetryable(new SocketException("Connection reset"), Connection.Method.GET), is(true));
+        assertThat(policy.isRetryable(new IOException("broken"), Connection.Method.GET), is(false));
+    }
+
+    @Test
+    public void should_not_replay_requests_of_other_methods_which_may_have_been_processed() {
+        RetryPolicy policy = policy(new RetryPolicy.RetryBudget(0, 100));
+
+        assertThat(policy.isRetryable(new SocketException("Connection reset"), Connection.Method.POST), is(false));
+        assertThat(policy.isRetryable(new UnknownHostException("staging"), Connection.Method.POST), is(true));
+        assertThat(policy.isRetryable(new SocketTimeoutException("read timed out"), Connection.Method.POST), is(true));
+    }
+
+    @Test
+    public void should_not_retry_unavailable_responses_to_post() throws IOException {
+        Fetcher fetcher = Fetcher.builder()
+                .deviceType(DESKTOP)
+                .method(Connection.Method.POST)
+                .cookie(Collections.emptyMap())
+                .timeout(5000)
+                .retryPolicy(policy(new RetryPolicy.RetryBudget(0, 100)))
+                .retriesOnTimeout(3)
+                .diskCache(null)
+                .build();
+
+        Connection.Response response = fetcher.fetch(server.url("/flaky"));
+
+        assertThat(response.statusCode(), is(503));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void should_retry_unavailable_responses() throws IOException {
+        Connection.Response response = fetcher(policy(new RetryPolicy.RetryBudget(0, 100)), 3).fetch(server.url("/flaky"));
+
+        assertThat(response.statusCode(), is(200));
+        assertThat(server.getRequestCount(), is(3));
+    }
+
+    @Test
+    public void should_return_last_response_if_retries_are_exhausted() throws IOException {
+        Connection.Response response = fetcher(policy(new RetryPolicy.RetryBudget(0, 100)), 1).fetch(server.url("/flaky"));
+
+        assertThat(response.statusCode(), is(503));
+        assertThat(server.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void should_not_retry_other_status_codes() throws IOException {
+        Connection.Response response = fetcher(policy(new RetryPolicy.RetryBudget(0, 100)), 3).fetch(server.url("/missing"));
+
+        assertThat(response.statusCode(), is(404));
+        assertThat(server.getRequestCount(), is(1));
+    }
+
+    private static RetryPolicy policy(RetryPolicy.RetryBudget budget) {
+        return new RetryPolicy(100, 1000, 2, new HashSet<>(Arrays.asList(429, 503)), budget, () -> 1.0);
+    }
+
+    private static Fetcher fetcher(RetryPolicy retryPolicy, int retries) {
+        return Fetcher.builder()
+                .deviceType(DESKTOP)
+                .cookie(Collections.emptyMap())
+                .timeout(5000)
+                .retryPolicy(retryPolicy)
+                .retriesOnTimeout(retries)
+                .diskCache(null)
+                .build();
+    }
+}
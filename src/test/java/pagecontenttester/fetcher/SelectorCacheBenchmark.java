@@ -0,0 +1,58 @@
+package pagecontenttester.fetcher;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of running the usual test selectors on a page, with and without the compiled selector cache.
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark=SelectorCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectorCacheBenchmark {
+
+    @Param({"10", "200"})
+    private int products;
+
+    private Document document;
+
+    @Setup
+    public void parsePage() {
+        document = Jsoup.parse(BenchmarkPages.productListing(products), "https://www.example.com/products");
+    }
+
+    @Benchmark
+    public void parseSelectorOnEveryQuery(Blackhole blackhole) {
+        for (String selector : BenchmarkPages.SELECTORS) {
+            Elements elements = document.select(selector);
+            blackhole.consume(elements.size());
+        }
+    }
+
+    @Benchmark
+    public void compiledSelectorFromCache(Blackhole blackhole) {
+        for (String selector : BenchmarkPages.SELECTORS) {
+            Elements elements = SelectorCache.select(selector, document);
+            blackhole.consume(elements.size());
+        }
+    }
+}
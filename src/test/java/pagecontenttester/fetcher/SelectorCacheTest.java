@@ -0,0 +1,32 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.select.Selector;
+import org.junit.Test;
+
+public class SelectorCacheTest {
+
+    private final Document document = Jsoup.parse(BenchmarkPages.productListing(20));
+
+    @Test
+    public void should_select_same_elements_as_jsoup() {
+        for (String selector : BenchmarkPages.SELECTORS) {
+            assertThat(selector, SelectorCache.select(selector, document), is(document.select(selector)));
+        }
+    }
+
+    @Test
+    public void should_compile_selector_only_once() {
+        assertThat(SelectorCache.compile("article.product > .price"), sameInstance(SelectorCache.compile(" article.product > .price ")));
+    }
+
+    @Test(expected = Selector.SelectorParseException.class)
+    public void should_reject_invalid_selector() {
+        SelectorCache.compile("div[");
+    }
+}
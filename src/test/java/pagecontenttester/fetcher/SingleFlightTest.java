@@ -0,0 +1,66 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @Test
+    public void concurrent_callers_should_share_one_load() throws Exception {
+        int callers = 20;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                loads.incrementAndGet();
+                release.await();
+                return "page";
+            })));
+        }
+        // the load blocks until released, so every caller either performs it or waits for it
+        while (singleFlight.inFlightCount() != 1 || singleFlight.waitingCount() != callers - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS), is("page"));
+        }
+        executor.shutdown();
+        assertThat(loads.get(), is(1));
+        assertThat(singleFlight.inFlightCount(), is(0));
+        assertThat(singleFlight.waitingCount(), is(0));
+    }
+
+    @Test
+    public void sequential_callers_should_load_again() throws Exception {
+        SingleFlight<String, Integer> counting = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        counting.execute("key", loads::incrementAndGet);
+        assertThat(counting.execute("key", loads::incrementAndGet), is(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void should_propagate_failure_of_load() throws Exception {
+        singleFlight.execute("key", () -> {
+            throw new IOException("connection reset");
+        });
+    }
+}
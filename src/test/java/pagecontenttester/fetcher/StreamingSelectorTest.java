@@ -0,0 +1,65 @@
+package pagecontenttester.fetcher;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static pagecontenttester.fetcher.StreamingSelector.NOT_STREAMABLE;
+
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+public class StreamingSelectorTest {
+
+    private static final String PAGE = BenchmarkPages.productListing(30)
+            .replace("</main>", "<!-- <div class=\"price\">commented out</div> --><!--><div id=\"after-empty-comment\"></div>"
+                    + "<script>var html = '<div class=\"price\">';</script>"
+                    + "<textarea><article class=\"product\"></textarea>"
+                    + "<div data-Name=\"A&amp;B\" data-name=\"ignored\" class=\"Teaser  big\"></div>"
+                    + "<select><option value=\"1\">one</option><optgroup label=x><option>two</option></optgroup></select>"
+                    + "</main>");
+
+    @Test
+    public void should_count_like_the_dom() {
+        String[] selectors = {
+                "article", "article.product", ".sponsored", "#header", "#after-empty-comment",
+                "[data-id]", "[data-id=7]", "[data-id^=1]", "[data-id$=9]", "[data-id*=2]", "[alt]",
+                "div[data-name=a&b]", ".teaser.big", "DIV.Teaser", "h1, h2", "option", "span.price", "button[type=button]",
+                "div.price", "nav", "[class~=product-?name]"
+        };
+        for (String selector : selectors) {
+            assertThat(selector, StreamingSelector.count(PAGE, selector, Integer.MAX_VALUE), is(Jsoup.parse(PAGE).select(selector).size()));
+        }
+    }
+
+    @Test
+    public void should_stop_at_limit() {
+        assertThat(StreamingSelector.count(PAGE, "article.product", 1), is(1));
+        assertThat(StreamingSelector.count(PAGE, "article.product", 5), is(5));
+        assertThat(StreamingSelector.count(PAGE, ".does-not-exist", 1), is(0));
+    }
+
+    @Test
+    public void should_not_stream_selectors_depending_on_the_tree() {
+        assertThat(StreamingSelector.isStreamable("div article"), is(false));
+        assertThat(StreamingSelector.isStreamable("ul > li"), is(false));
+        assertThat(StreamingSelector.isStreamable("li:first-child"), is(false));
+        assertThat(StreamingSelector.isStreamable("body"), is(false));
+        assertThat(StreamingSelector.isStreamable("tr.row"), is(false));
+        assertThat(StreamingSelector.isStreamable("p"), is(false));
+        assertThat(StreamingSelector.isStreamable("a.link, [href]"), is(true));
+    }
+
+    @Test
+    public void should_give_up_where_the_tree_builder_restructures() {
+        // misnested formatting elements are cloned, the DOM contains two b elements
+        String misnested = "<div><b class=\"x\"><p>one</b>two</p></div>";
+        assertThat(StreamingSelector.count(misnested, ".x", Integer.MAX_VALUE), is(NOT_STREAMABLE));
+        assertThat(StreamingSelector.count(misnested, ".x", 1), is(1));
+
+        // a cell outside of a table is dropped
+        assertThat(StreamingSelector.count("<div><td class=\"x\"></td></div>", ".x", 1), is(NOT_STREAMABLE));
+
+        // everything but options is dropped inside of a select
+        assertThat(StreamingSelector.count("<select><div class=\"x\"></div></select>", ".x", 1), is(NOT_STREAMABLE));
+        assertThat(StreamingSelector.count("<select></select><div class=\"x\"></div>", ".x", 1), is(1));
+    }
+}
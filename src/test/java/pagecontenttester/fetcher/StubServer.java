@@ -0,0 +1,145 @@
+package pagecontenttester.fetcher;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+/**
+ * Local http server to test fetching without depending on the internet.
+ */
+public class StubServer implements AutoCloseable {
+
+    private static final char[] KEY_STORE_PASSWORD = "stub-server".toCharArray();
+
+    private final HttpServer server;
+    private final String scheme;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicLong bodyBytesSent = new AtomicLong();
+
+    public StubServer() throws IOException {
+        this(0);
+    }
+
+    public StubServer(int port) throws IOException {
+        this(HttpServer.create(new InetSocketAddress("localhost", port), 0), "http");
+    }
+
+    private StubServer(HttpServer server, String scheme) {
+        this.server = server;
+        this.scheme = scheme;
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /**
+     * @return a server answering https requests with a self signed certificate for localhost
+     */
+    public static StubServer https() throws IOException {
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setHttpsConfigurator(new HttpsConfigurator(selfSignedContext()));
+        return new StubServer(server, "https");
+    }
+
+    private static SSLContext selfSignedContext() throws IOException {
+        Path keyStoreFile = Files.createTempDirectory("stub-server").resolve("localhost.jks");
+        try {
+            Process keytool = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "keytool").toString(),
+                                                 "-genkeypair", "-alias", "localhost", "-keyalg", "RSA", "-keysize", "2048",
+                                                 "-dname", "CN=localhost", "-validity", "1",
+                                                 "-keystore", keyStoreFile.toString(),
+                                                 "-storepass", new String(KEY_STORE_PASSWORD),
+                                                 "-keypass", new String(KEY_STORE_PASSWORD))
+                    .redirectErrorStream(true)
+                    .start();
+            if (keytool.waitFor() != 0) {
+                throw new IOException("keytool could not create a certificate for localhost");
+            }
+            KeyStore keyStore = KeyStore.getInstance("JKS");
+            try (InputStream in = Files.newInputStream(keyStoreFile)) {
+                keyStore.load(in, KEY_STORE_PASSWORD);
+            }
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(keyStore, KEY_STORE_PASSWORD);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(keyManagers.getKeyManagers(), null, null);
+            return context;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while creating a certificate for localhost", e);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("could not create ssl context of stub server", e);
+        } finally {
+            Files.deleteIfExists(keyStoreFile);
+            Files.deleteIfExists(keyStoreFile.getParent());
+        }
+    }
+
+    public StubServer handle(String path, HttpHandler handler) {
+        server.createContext(path, exchange -> {
+            requestCount.incrementAndGet();
+            try {
+                handler.handle(exchange);
+            } finally {
+                exchange.close();
+            }
+        });
+        return this;
+    }
+
+    public StubServer respond(String path, int status, String body) {
+        return handle(path, exchange -> send(exchange, status, body));
+    }
+
+    public void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        bodyBytesSent.addAndGet(bytes.length);
+    }
+
+    public String url(String path) {
+        return scheme + "://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getBodyBytesSent() {
+        return bodyBytesSent.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}